@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.assembly.annotation.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 表示应用启动时执行的缓存预热方法的注解<br>
+ * 1.方法必须是Bean的无参方法，通过Bean调用，所以方法上的@Cacheable等注解同样生效<br>
+ * 2.和{@link pjq.springboot.service.cache.CacheWarmer}一起在Web服务接收请求前并行执行
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CacheWarmup {
+    /**
+     * 预热任务的名称，用于日志及指标，默认为"类名.方法名"
+     *
+     * @return
+     */
+    String value() default "";
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * 自定义缓存配置(Caffeine和Redis共用)
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Data
+@Component
+@ConfigurationProperties("pjq.cache")
+@RefreshScope
+public class CacheCustomProperties {
+    /**
+     * 缓存失效时间的随机抖动，格式见{@link TtlJitter}<br>
+     * 1.对有失效时间的所有缓存项生效，默认不抖动<br>
+     * 2.根据cacheName动态配置的缓存，可以在cacheName中通过jitter配置项单独指定
+     */
+    private String ttlJitter;
+
+    /**
+     * 根据cacheName动态配置的缓存，在配置文件中按缓存名指定的缓存配置<br>
+     * key为缓存名(不含'#'号及后面的内容)，value格式为{@code 失效秒数;配置项=值}，例如{@code 600;max=50000;refresh=300}<br>
+     * cacheName中同时有配置时，cacheName中的配置项优先，格式见{@link CacheNameSpec}
+     */
+    private Map<String, String> specs = new HashMap<>();
+
+    /**
+     * 本地缓存按字节数限制大小时，每个缓存的默认最大字节数，例如{@code 256MB}<br>
+     * 1.配置后默认的本地缓存及动态配置中没有指定max的本地缓存都按估算的字节数限制大小，不配置时按缓存项数量限制<br>
+     * 2.缓存项的字节数由{@link pjq.springboot.config.cache.caffeine.CacheValueSizeEstimator}估算
+     */
+    private DataSize maximumWeight;
+
+    /**
+     * 本地缓存堆外存储每个分片的字节数<br>
+     * 堆外存储按分片分配直接内存并按分片整体淘汰，超过分片大小的缓存项不保存到堆外，见{@link CacheNameSpec}的offHeap配置项
+     */
+    private DataSize offHeapSlabSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 是否记录缓存指标，见{@link pjq.springboot.config.cache.metrics.CacheMetrics}<br>
+     * 启用后所有pjq的cacheManager都会记录命中、写入、删除、锁等待、淘汰及加载耗时等指标
+     */
+    private boolean metricsEnabled = false;
+
+    /**
+     * 是否为加载耗时指标发布百分位直方图，默认不发布<br>
+     * 直方图每个缓存(及租户)会多出几十个时间序列，多租户时数量随租户增长，只在需要时启用；启用后桶的范围限制在1ms到10s
+     */
+    private boolean metricsHistogramEnabled = false;
+
+    /**
+     * 根据堆内存压力调整本地缓存大小的配置，见{@link pjq.springboot.config.cache.caffeine.HeapPressureCacheSizer}
+     */
+    private AdaptiveSizing adaptiveSizing = new AdaptiveSizing();
+
+    /**
+     * 本地缓存快照的配置，见{@link pjq.springboot.config.cache.caffeine.CaffeineCacheSnapshotter}
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * 启动时缓存预热的配置，见{@link pjq.springboot.config.cache.warmup.CacheWarmupProcessor}
+     */
+    private Warmup warmup = new Warmup();
+
+    /**
+     * 缓存key中方法参数部分的编码配置，见{@link CacheKeyParamsEncoder}
+     */
+    private KeyEncoder keyEncoder = new KeyEncoder();
+
+    @Data
+    public static class AdaptiveSizing {
+        /**
+         * 是否启用，默认不启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 老年代GC后使用率的高水位，达到时收缩本地缓存
+         */
+        private double highWatermark = 0.85;
+
+        /**
+         * 老年代GC后使用率的低水位，低于时逐步恢复本地缓存大小
+         */
+        private double lowWatermark = 0.6;
+
+        /**
+         * 每次收缩时缩放比例乘以的系数
+         */
+        private double shrinkFactor = 0.5;
+
+        /**
+         * 每次恢复时缩放比例乘以的系数，最多恢复到原配置值
+         */
+        private double growFactor = 1.25;
+
+        /**
+         * 缩放比例的最小值，避免缓存被收缩到几乎不可用
+         */
+        private double minScale = 0.1;
+
+        /**
+         * 两次调整之间的最小间隔
+         */
+        private Duration cooldown = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Snapshot {
+        /**
+         * 是否启用，默认不启用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 快照文件的保存目录，启用时必须配置<br>
+         * 快照使用JDK反序列化，必须是应用专用的目录，不能使用java.io.tmpdir等多个用户共用的目录；
+         * 目录不存在时按只有当前用户可读写的权限创建，目录或快照文件不属于当前用户时不加载
+         */
+        private String directory;
+
+        /**
+         * 需要保存快照的缓存名(不含'#'号及后面的内容)，为空时保存所有本地缓存
+         */
+        private List<String> cacheNames = new ArrayList<>();
+
+        /**
+         * 每个缓存最多保存的缓存项数量，按访问频率从高到低保存
+         */
+        private int maxEntriesPerCache = 10000;
+
+        /**
+         * 启动时并行加载快照的线程数
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 启动时等待加载快照的最长时间，超过后不再等待
+         */
+        private Duration restoreTimeout = Duration.ofSeconds(60);
+
+        /**
+         * 固定失效时间的缓存恢复后会重新计算失效时间，剩余失效时间比缓存的失效时间少超过该值的缓存项不恢复
+         */
+        private Duration maxTtlExtension = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Warmup {
+        /**
+         * 是否执行缓存预热，默认执行
+         */
+        private boolean enabled = true;
+
+        /**
+         * 并行执行预热任务的线程数
+         */
+        private int parallelism = 4;
+
+        /**
+         * 等待所有预热任务完成的最长时间，超过后中断未完成的任务并继续启动
+         */
+        private Duration timeout = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class KeyEncoder {
+        /**
+         * 编码方式，默认为json以兼容原来的key
+         */
+        private KeyEncoderType type = KeyEncoderType.JSON;
+
+        /**
+         * compact方式下字符串参数直接输出的最大长度，超过时输出摘要
+         */
+        private int maxInlineLength = 64;
+
+        /**
+         * compact方式下参数部分的最大长度，超过时整体输出摘要
+         */
+        private int maxLength = 256;
+
+        /**
+         * compact方式下是否调试模式，调试模式下复杂对象直接输出json，只用于开发环境
+         */
+        private boolean debug = false;
+    }
+
+    public enum KeyEncoderType {
+        /**
+         * 所有参数转成json串
+         */
+        JSON,
+
+        /**
+         * 简单类型直接输出，复杂对象输出摘要
+         */
+        COMPACT
+    }
+}
@@ -32,6 +32,9 @@
 package pjq.springboot.config.cache;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -44,8 +47,8 @@ import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.annotation.AnnotationUtils;
-import com.alibaba.fastjson.JSON;
 
 import lombok.extern.slf4j.Slf4j;
 import pjq.commons.utils.CheckUtils;
@@ -79,10 +82,9 @@ public class CacheKeyGeneratorConfig {
             @Override
             public String getPrefix() {
                 //@Cacheable等注解生成的key也会用到该方法获取前缀
-                //super.getPrefix()获取到的值不会为空
-                return DefaultValueGetter.getValue(MultiTenantInfoHolder.UNKNOWN_TENANT_NAME,
-                        multiTenantInfoHolder.getContextTenantName())
-                        + CacheConstants.DEFAULT_SEPARATOR + super.getPrefix();
+                //租户名为空时使用默认租户名，基础前缀不会为空
+                return getTenantPrefix(DefaultValueGetter.getValue(MultiTenantInfoHolder.UNKNOWN_TENANT_NAME,
+                        multiTenantInfoHolder.getContextTenantName()));
             }
         };
     }
@@ -96,63 +98,99 @@ public class CacheKeyGeneratorConfig {
     }
 
     /**
-     * 该key生成器会对所有参数转成json串，如果不需要这种方式的话则自行指定key<br>
-     * 例如如果参数中有复杂对象的集合，建议还是自行指定key
+     * 缓存key中方法参数部分的编码器，按pjq.cache.key-encoder.type配置选择
+     *
+     * @param cacheCustomProperties
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheKeyParamsEncoder cacheKeyParamsEncoder(CacheCustomProperties cacheCustomProperties) {
+        CacheCustomProperties.KeyEncoder keyEncoder = cacheCustomProperties.getKeyEncoder();
+        return keyEncoder.getType() == CacheCustomProperties.KeyEncoderType.COMPACT
+                ? new CompactCacheKeyParamsEncoder(keyEncoder.getMaxInlineLength(), keyEncoder.getMaxLength(),
+                        keyEncoder.isDebug())
+                : new JsonCacheKeyParamsEncoder();
+    }
+
+    /**
+     * 该key生成器默认会对所有参数转成json串，如果不需要这种方式的话则自行指定key<br>
+     * 例如如果参数中有复杂对象的集合，建议配置pjq.cache.key-encoder.type=compact或自行指定key，参数的编码方式见{@link CacheKeyParamsEncoder}
      *
      * @return
      */
     @Bean(CacheConstants.CUSTOM_KEY_GENERATOR_NAME)
-    public KeyGenerator customKeyGenerator(CacheKeyPrefixDecorator cacheKeyPrefixDecorator) {
+    public KeyGenerator customKeyGenerator(CacheKeyPrefixDecorator cacheKeyPrefixDecorator,
+            CacheKeyParamsEncoder cacheKeyParamsEncoder) {
         //先引用一次该bean以提早注册，否则会在应用启动完成后再注册
         //不先引用也不影响bean生成，只是这里的log日志输出顺序会比CacheKeyPrefixDecorator的早，阅读上容易理解错误
         cacheKeyPrefixDecorator.getPrefix();
 
         log.info("加载@Cacheable等注解的缓存key生成器");
+        //缓存名及方法名部分只和类、方法有关，按类及方法缓存，避免每次生成key时都查找注解；
+        //缓存随生成器一起释放；不使用ClassValue，避免缓存内容引用的其它类加载器的类被挂在目标类上而不能卸载
+        ConcurrentMap<MethodClassKey, String> keyTemplates = new ConcurrentHashMap<>();
         return (target, method, params) -> {
-            StringBuilder key = new StringBuilder(cacheKeyPrefixDecorator.getPrefix());
-
-            //从方法获取缓存相关注解
             Class<?> targetClass = target.getClass();
-            Class<? extends Annotation> cacheAnnoClass = null;
-            if (method.isAnnotationPresent(CacheEvict.class)) {
+            MethodClassKey methodClassKey = new MethodClassKey(method, targetClass);
+            String keyTemplate = keyTemplates.get(methodClassKey);
+            if (keyTemplate == null) {
+                keyTemplate = keyTemplates.computeIfAbsent(methodClassKey,
+                        k -> resolveKeyTemplate(targetClass, method));
+            }
+
+            StringBuilder key = new StringBuilder(cacheKeyPrefixDecorator.getPrefix()).append(keyTemplate);
+            if (CheckUtils.isNotEmpty(params)) {
+                key.append(CacheConstants.DEFAULT_SEPARATOR);
+                cacheKeyParamsEncoder.encode(params, key);
+            }
+            return key.toString();
+        };
+    }
+
+    /**
+     * 解析key中缓存名及方法名部分，格式为{@code 缓存名:方法名}
+     *
+     * @param targetClass
+     * @param method
+     * @return
+     */
+    private static String resolveKeyTemplate(Class<?> targetClass, Method method) {
+        //从方法获取缓存相关注解
+        Class<? extends Annotation> cacheAnnoClass = null;
+        if (method.isAnnotationPresent(CacheEvict.class)) {
+            cacheAnnoClass = CacheEvict.class;
+        } else if (method.isAnnotationPresent(CachePut.class)) {
+            cacheAnnoClass = CachePut.class;
+        } else {
+            cacheAnnoClass = Cacheable.class;
+        }
+
+        //通过cacheNames属性获取其值，因为@CacheConfig没有value属性，而4个注解都有的是cacheNames属性
+        String attrName = "cacheNames";
+        String[] cacheNames = (String[]) AnnotationUtils.getValue(
+                AnnotationUtils.findAnnotation(method, cacheAnnoClass), attrName);
+        String targetName = CheckUtils.isNotEmpty(cacheNames) ? cacheNames[0] : null;
+
+        if (CheckUtils.isEmpty(targetName)) {
+            //尝试从类上获取缓存相关注解
+            if (targetClass.isAnnotationPresent(CacheEvict.class)) {
                 cacheAnnoClass = CacheEvict.class;
-            } else if (method.isAnnotationPresent(CachePut.class)) {
+            } else if (targetClass.isAnnotationPresent(CachePut.class)) {
                 cacheAnnoClass = CachePut.class;
-            } else {
+            } else if (targetClass.isAnnotationPresent(Cacheable.class)) {
                 cacheAnnoClass = Cacheable.class;
+            } else {
+                cacheAnnoClass = CacheConfig.class;
             }
 
-            //通过cacheNames属性获取其值，因为@CacheConfig没有value属性，而4个注解都有的是cacheNames属性
-            String attrName = "cacheNames";
-            String[] cacheNames = (String[]) AnnotationUtils.getValue(
-                    AnnotationUtils.findAnnotation(method, cacheAnnoClass), attrName);
-            String targetName = CheckUtils.isNotEmpty(cacheNames) ? cacheNames[0] : null;
-
+            String[] cacheNamesInClass = (String[]) AnnotationUtils.getValue(
+                    AnnotationUtils.findAnnotation(targetClass, cacheAnnoClass), attrName);
+            targetName = CheckUtils.isNotEmpty(cacheNamesInClass) ? cacheNamesInClass[0] : null;
             if (CheckUtils.isEmpty(targetName)) {
-                //尝试从类上获取缓存相关注解
-                if (targetClass.isAnnotationPresent(CacheEvict.class)) {
-                    cacheAnnoClass = CacheEvict.class;
-                } else if (targetClass.isAnnotationPresent(CachePut.class)) {
-                    cacheAnnoClass = CachePut.class;
-                } else if (targetClass.isAnnotationPresent(Cacheable.class)) {
-                    cacheAnnoClass = Cacheable.class;
-                } else {
-                    cacheAnnoClass = CacheConfig.class;
-                }
-
-                String[] cacheNamesInClass = (String[]) AnnotationUtils.getValue(
-                        AnnotationUtils.findAnnotation(targetClass, cacheAnnoClass), attrName);
-                targetName = CheckUtils.isNotEmpty(cacheNamesInClass) ? cacheNamesInClass[0] : null;
-                if (CheckUtils.isEmpty(targetName)) {
-                    targetName = targetClass.getName().toLowerCase();
-                }
+                targetName = targetClass.getName().toLowerCase();
             }
-            key.append(targetName + CacheConstants.DEFAULT_SEPARATOR);
-            key.append(method.getName());
-            if (CheckUtils.isNotEmpty(params)) {
-                key.append(CacheConstants.DEFAULT_SEPARATOR + JSON.toJSONString(params));
-            }
-            return key.toString();
-        };
+        }
+        return targetName + CacheConstants.DEFAULT_SEPARATOR + method.getName();
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache;
+
+/**
+ * 缓存key生成器中方法参数部分的编码器<br>
+ * 1.默认按pjq.cache.key-encoder.type配置使用{@link JsonCacheKeyParamsEncoder}或{@link CompactCacheKeyParamsEncoder}<br>
+ * 2.具体工程可以实现该接口并注册为Bean，替换默认的编码器
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public interface CacheKeyParamsEncoder {
+    /**
+     * 把方法参数编码后追加到key
+     *
+     * @param params
+     *         方法参数，不会为空
+     * @param key
+     */
+    void encode(Object[] params, StringBuilder key);
+}
@@ -31,8 +31,12 @@
  */
 package pjq.springboot.config.cache;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.util.StringUtils;
 
 import pjq.commons.utils.CheckUtils;
 import pjq.commons.utils.DefaultValueGetter;
@@ -40,7 +44,8 @@ import pjq.springboot.constant.CacheConstants;
 
 /**
  * 缓存key前缀修饰器<br>
- * 用于为缓存key加上统一的前缀
+ * 用于为缓存key加上统一的前缀<br>
+ * 前缀只在第一次使用时计算，配置刷新时Bean会重新创建(@RefreshScope)，即会重新计算
  *
  * @author pengjianqiang
  * @date 2021-09-18
@@ -49,6 +54,11 @@ public class CacheKeyPrefixDecorator {
     public static final String BEAN_NAME = "cacheKeyPrefixDecorator";
     private static final String BEAN_REF = "@" + BEAN_NAME;
 
+    /**
+     * 缓存的租户前缀的最大数量，超过后新租户的前缀不再缓存
+     */
+    private static final int MAX_TENANT_PREFIXES = 1024;
+
     /**
      * 用于SPEL表达式中对参数key加上基础缓存key前缀<br>
      * 1.生成的key需要后续带上参数值时的用法：<br>
@@ -65,14 +75,44 @@ public class CacheKeyPrefixDecorator {
     @Value(CacheConstants.CACHE_KEY_BASE_PREFIX)
     private String basePrefix;
 
+    private volatile String resolvedBasePrefix;
+    private final ConcurrentMap<String, String> tenantPrefixes = new ConcurrentHashMap<>();
+
     /**
      * 获取缓存key前缀
      *
      * @return
      */
     public String getPrefix() {
-        //要去掉可能存在的"/"号
-        return DefaultValueGetter.getValue("baseCache", basePrefix.replaceAll("/", ""));
+        return getBasePrefix();
+    }
+
+    private String getBasePrefix() {
+        String prefix = resolvedBasePrefix;
+        if (prefix == null) {
+            //要去掉可能存在的"/"号
+            prefix = DefaultValueGetter.getValue("baseCache", StringUtils.delete(basePrefix, "/"));
+            resolvedBasePrefix = prefix;
+        }
+        return prefix;
+    }
+
+    /**
+     * 获取带租户名的缓存key前缀，格式为{@code 租户名:基础缓存key前缀}<br>
+     * 已使用过的租户的前缀会被缓存，不需要每次拼接
+     *
+     * @param tenantName
+     * @return
+     */
+    protected String getTenantPrefix(String tenantName) {
+        String prefix = tenantPrefixes.get(tenantName);
+        if (prefix == null) {
+            prefix = tenantName + CacheConstants.DEFAULT_SEPARATOR + getBasePrefix();
+            if (tenantPrefixes.size() < MAX_TENANT_PREFIXES) {
+                tenantPrefixes.putIfAbsent(tenantName, prefix);
+            }
+        }
+        return prefix;
     }
 
     /**
@@ -101,13 +141,19 @@ public class CacheKeyPrefixDecorator {
             key = "unknownKey";
         }
 
-        StringBuilder resultKey = new StringBuilder();
         String prefix = getPrefix();
-        if (!key.startsWith(prefix)) {
+        boolean appendPrefix = !key.startsWith(prefix);
+        boolean appendSeparator = autoAppend && !key.endsWith(CacheConstants.DEFAULT_SEPARATOR);
+        if (!appendPrefix && !appendSeparator) {
+            return key;
+        }
+
+        StringBuilder resultKey = new StringBuilder(prefix.length() + key.length() + 1);
+        if (appendPrefix) {
             resultKey.append(prefix);
         }
         resultKey.append(key);
-        if (autoAppend && !key.endsWith(CacheConstants.DEFAULT_SEPARATOR)) {
+        if (appendSeparator) {
             resultKey.append(CacheConstants.DEFAULT_SEPARATOR);
         }
         return resultKey.toString();
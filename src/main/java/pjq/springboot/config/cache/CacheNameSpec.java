@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Getter;
+import pjq.springboot.constant.CacheConstants;
+
+/**
+ * 根据cacheName动态配置缓存时，从cacheName中解析出的缓存配置<br>
+ * 格式为：{@code 缓存名#失效秒数;配置项=值;配置项=值}，例如{@code orders#600;max=50000;refresh=300;jitter=10%}<br>
+ * 也可以通过pjq.cache.specs.缓存名=失效秒数;配置项=值配置，cacheName中的配置优先<br>
+ * 目前支持的配置项：<br>
+ * 1.jitter：失效时间的随机抖动，格式见{@link TtlJitter}<br>
+ * 2.max：本地缓存的最大缓存项数量，Redis缓存不支持<br>
+ * 3.refresh：写入后超过该秒数的缓存项在被访问时异步刷新，只对{@code @Cacheable(sync = true)}生效<br>
+ * 4.weigh：值为bytes时本地缓存按估算的字节数限制大小，此时max配置项无效，Redis缓存不支持<br>
+ * 5.maxWeight：按字节数限制大小时的最大字节数，例如{@code 64MB}；配置了该项时即使没有配置weigh也按字节数限制，
+ * 没有配置时使用pjq.cache.maximum-weight配置<br>
+ * 6.offHeap：本地缓存的堆外存储字节数，例如{@code 2GB}，配置后因容量限制淘汰的缓存项保存到堆外，再次访问时取回；
+ * 和refresh同时配置时不生效，Redis缓存不支持
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ * @see CacheConstants.CacheManagerNames
+ */
+@Getter
+public final class CacheNameSpec {
+    public static final String TTL_SEPARATOR = "#";
+    public static final String OPTION_SEPARATOR = ";";
+    public static final String OPTION_VALUE_SEPARATOR = "=";
+    public static final String OPTION_JITTER = "jitter";
+    public static final String OPTION_MAXIMUM_SIZE = "max";
+    public static final String OPTION_REFRESH = "refresh";
+    public static final String OPTION_WEIGH = "weigh";
+    public static final String OPTION_MAXIMUM_WEIGHT = "maxWeight";
+    public static final String OPTION_OFF_HEAP = "offHeap";
+    public static final String WEIGH_BYTES = "bytes";
+
+    private static final CacheNameSpec EMPTY = new CacheNameSpec(null, null, null, null, false, null, null);
+
+    /**
+     * 失效时间，没有配置或配置错误时为null
+     */
+    private final @Nullable Duration ttl;
+
+    /**
+     * 失效时间的随机抖动，没有配置或配置错误时为null
+     */
+    private final @Nullable TtlJitter ttlJitter;
+
+    /**
+     * 最大缓存项数量，没有配置或配置错误时为null
+     */
+    private final @Nullable Long maximumSize;
+
+    /**
+     * 写入后多久开始异步刷新，没有配置或配置错误时为null
+     */
+    private final @Nullable Duration refreshAfterWrite;
+
+    /**
+     * 是否按字节数限制大小
+     */
+    private final boolean weighBytes;
+
+    /**
+     * 最大字节数，没有配置或配置错误时为null
+     */
+    private final @Nullable Long maximumWeight;
+
+    /**
+     * 堆外存储的字节数，没有配置或配置错误时为null
+     */
+    private final @Nullable Long offHeapSize;
+
+    private CacheNameSpec(@Nullable Duration ttl, @Nullable TtlJitter ttlJitter, @Nullable Long maximumSize,
+            @Nullable Duration refreshAfterWrite, boolean weighBytes, @Nullable Long maximumWeight,
+            @Nullable Long offHeapSize) {
+        this.ttl = ttl;
+        this.ttlJitter = ttlJitter;
+        this.maximumSize = maximumSize;
+        this.refreshAfterWrite = refreshAfterWrite;
+        this.weighBytes = weighBytes || maximumWeight != null;
+        this.maximumWeight = maximumWeight;
+        this.offHeapSize = offHeapSize;
+    }
+
+    /**
+     * 是否没有任何配置
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return ttl == null && ttlJitter == null && maximumSize == null && refreshAfterWrite == null && !weighBytes
+                && offHeapSize == null;
+    }
+
+    /**
+     * 解析cacheName中的缓存配置
+     *
+     * @param name
+     * @return
+     */
+    public static CacheNameSpec parse(String name) {
+        return parse(name, Collections.emptyMap());
+    }
+
+    /**
+     * 解析cacheName及配置文件中的缓存配置
+     *
+     * @param name
+     * @param specs
+     *         配置文件中按缓存名(不含'#'号及后面的内容)配置的缓存配置
+     * @return
+     */
+    public static CacheNameSpec parse(String name, Map<String, String> specs) {
+        int ttlIndex = name.indexOf(TTL_SEPARATOR);
+        String baseName = ttlIndex < 0 ? name : name.substring(0, ttlIndex);
+        String propertySpec = specs.get(baseName);
+        if (ttlIndex < 0 && propertySpec == null) {
+            return EMPTY;
+        }
+
+        Builder builder = new Builder();
+        if (propertySpec != null) {
+            builder.parse(propertySpec);
+        }
+        if (ttlIndex >= 0) {
+            builder.parse(name.substring(ttlIndex + 1));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 按顺序解析多个配置，后解析的配置项覆盖先解析的
+     */
+    private static class Builder {
+        private Duration ttl;
+        private TtlJitter ttlJitter;
+        private Long maximumSize;
+        private Duration refreshAfterWrite;
+        private boolean weighBytes;
+        private Long maximumWeight;
+        private Long offHeapSize;
+
+        void parse(String spec) {
+            String[] parts = spec.split(OPTION_SEPARATOR);
+            Duration partTtl = parseSeconds(parts[0]);
+            if (partTtl != null) {
+                ttl = partTtl;
+            }
+
+            for (int i = 1; i < parts.length; i++) {
+                int valueIndex = parts[i].indexOf(OPTION_VALUE_SEPARATOR);
+                if (valueIndex < 0) {
+                    continue;
+                }
+
+                String option = parts[i].substring(0, valueIndex).trim();
+                String value = parts[i].substring(valueIndex + 1).trim();
+                if (OPTION_JITTER.equalsIgnoreCase(option)) {
+                    ttlJitter = TtlJitter.parse(value);
+                } else if (OPTION_MAXIMUM_SIZE.equalsIgnoreCase(option)) {
+                    maximumSize = parsePositiveLong(value);
+                } else if (OPTION_REFRESH.equalsIgnoreCase(option)) {
+                    refreshAfterWrite = parseSeconds(value);
+                } else if (OPTION_WEIGH.equalsIgnoreCase(option)) {
+                    weighBytes = WEIGH_BYTES.equalsIgnoreCase(value);
+                } else if (OPTION_MAXIMUM_WEIGHT.equalsIgnoreCase(option)) {
+                    maximumWeight = parseDataSize(value);
+                } else if (OPTION_OFF_HEAP.equalsIgnoreCase(option)) {
+                    offHeapSize = parseDataSize(value);
+                }
+            }
+        }
+
+        CacheNameSpec build() {
+            return new CacheNameSpec(ttl, ttlJitter, maximumSize, refreshAfterWrite, weighBytes, maximumWeight,
+                    offHeapSize);
+        }
+    }
+
+    @Nullable
+    private static Duration parseSeconds(String seconds) {
+        Long value = parsePositiveLong(seconds);
+        return value != null ? Duration.ofSeconds(value) : null;
+    }
+
+    @Nullable
+    private static Long parseDataSize(String value) {
+        try {
+            long bytes = DataSize.parse(value).toBytes();
+            return bytes > 0 ? bytes : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Long parsePositiveLong(String value) {
+        try {
+            long longValue = Long.parseLong(value.trim());
+            return longValue > 0 ? longValue : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.TemporalAccessor;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializeConfig;
+import com.alibaba.fastjson.serializer.SerializeFilter;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alibaba.fastjson.serializer.ValueFilter;
+
+/**
+ * 生成较短key的参数编码器<br>
+ * 1.多个参数以','分隔；null、数字、布尔、枚举、UUID及java.time类型直接输出，{@link Date}输出毫秒数，字符串加双引号输出<br>
+ * 2.其它对象(实体、集合、数组等)按字段排序后的json计算128位MurmurHash3摘要，输出为'#'加32位十六进制，不生成完整的json串；
+ * Set等无序集合(参数本身、对象字段、Map的值及List中的元素)按元素的json排序后输出，摘要和元素的hashCode及迭代顺序无关<br>
+ * 3.超过最大长度的字符串同样输出摘要；参数部分整体超过最大长度时，整体替换为摘要<br>
+ * 4.调试模式下其它对象直接输出json且不限制长度，便于查看key的内容，但生成的key和非调试模式不同，只用于开发环境
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+class CompactCacheKeyParamsEncoder implements CacheKeyParamsEncoder {
+    private static final char PARAM_SEPARATOR = ',';
+    private static final char HASH_PREFIX = '#';
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+    private static final SerializerFeature[] HASH_FEATURES = { SerializerFeature.MapSortField,
+            SerializerFeature.SortField };
+    private static final SerializeFilter[] HASH_FILTERS = {
+            (ValueFilter) (object, name, value) -> canonicalize(value) };
+
+    private static final ThreadLocal<Murmur3Hash128> HASH = ThreadLocal.withInitial(Murmur3Hash128::new);
+
+    private final int maxInlineLength;
+    private final int maxLength;
+    private final boolean debug;
+
+    /**
+     * @param maxInlineLength
+     *         字符串参数直接输出的最大长度
+     * @param maxLength
+     *         参数部分的最大长度
+     * @param debug
+     *         是否调试模式
+     */
+    CompactCacheKeyParamsEncoder(int maxInlineLength, int maxLength, boolean debug) {
+        this.maxInlineLength = maxInlineLength;
+        this.maxLength = maxLength;
+        this.debug = debug;
+    }
+
+    @Override
+    public void encode(Object[] params, StringBuilder key) {
+        int start = key.length();
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                key.append(PARAM_SEPARATOR);
+            }
+            encode(params[i], key);
+        }
+
+        if (!debug && key.length() - start > maxLength) {
+            Murmur3Hash128 hash = HASH.get();
+            hash.reset();
+            hash.writeChars(key, start, key.length());
+            key.setLength(start);
+            key.append(HASH_PREFIX);
+            hash.finishTo(key);
+        }
+    }
+
+    private void encode(Object param, StringBuilder key) {
+        if (param == null || param instanceof Number || param instanceof Boolean || param instanceof UUID
+                || param instanceof TemporalAccessor) {
+            key.append(param);
+        } else if (param instanceof Enum) {
+            key.append(((Enum<?>) param).name());
+        } else if (param instanceof Date) {
+            key.append(((Date) param).getTime());
+        } else if (param instanceof CharSequence || param instanceof Character) {
+            encodeString(param.toString(), key);
+        } else if (debug) {
+            key.append(toCanonicalJson(param));
+        } else {
+            Murmur3Hash128 hash = HASH.get();
+            hash.reset();
+            try {
+                JSON.writeJSONString(hash, StandardCharsets.UTF_8, canonicalize(param), SerializeConfig.globalInstance,
+                        HASH_FILTERS, null, JSON.DEFAULT_GENERATE_FEATURE, HASH_FEATURES);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); //写入摘要计算不会有IO异常
+            }
+            key.append(HASH_PREFIX);
+            hash.finishTo(key);
+        }
+    }
+
+    private void encodeString(String value, StringBuilder key) {
+        if (!debug && value.length() > maxInlineLength) {
+            Murmur3Hash128 hash = HASH.get();
+            hash.reset();
+            hash.writeChars(value, 0, value.length());
+            key.append(HASH_PREFIX);
+            hash.finishTo(key);
+            return;
+        }
+
+        key.append(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE || c == ESCAPE) {
+                key.append(ESCAPE);
+            }
+            key.append(c);
+        }
+        key.append(QUOTE);
+    }
+
+    private static String toCanonicalJson(Object value) {
+        return JSON.toJSONString(canonicalize(value), HASH_FILTERS, HASH_FEATURES);
+    }
+
+    /**
+     * 把无序集合转换为按元素json排序的List，List中的元素同样转换；其它对象的字段由{@link #HASH_FILTERS}在序列化时转换
+     *
+     * @param value
+     * @return 不需要转换时返回原对象
+     */
+    private static Object canonicalize(Object value) {
+        if (!(value instanceof Collection)) {
+            return value;
+        }
+
+        if (value instanceof List) {
+            //只有元素需要转换时才复制
+            List<?> list = (List<?>) value;
+            List<Object> result = null;
+            int index = 0;
+            for (Iterator<?> iterator = list.iterator(); iterator.hasNext(); index++) {
+                Object element = iterator.next();
+                Object canonicalElement = canonicalize(element);
+                if (canonicalElement != element && result == null) {
+                    result = new ArrayList<>(list.subList(0, index));
+                }
+                if (result != null) {
+                    result.add(canonicalElement);
+                }
+            }
+            return result != null ? result : list;
+        }
+
+        Collection<?> collection = (Collection<?>) value;
+        List<Map.Entry<String, Object>> elements = new ArrayList<>(collection.size());
+        for (Object element : collection) {
+            Object canonicalElement = canonicalize(element);
+            elements.add(new AbstractMap.SimpleImmutableEntry<>(toCanonicalJson(canonicalElement), canonicalElement));
+        }
+        elements.sort(Map.Entry.comparingByKey());
+        List<Object> result = new ArrayList<>(elements.size());
+        elements.forEach(element -> result.add(element.getValue()));
+        return result;
+    }
+}
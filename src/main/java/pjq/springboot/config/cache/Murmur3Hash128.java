@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache;
+
+import java.io.OutputStream;
+
+/**
+ * 流式计算的MurmurHash3(x64 128位，seed为0)<br>
+ * 以{@link OutputStream}的方式写入数据，可以直接作为序列化的输出，不需要先生成完整的字节数组；非线程安全，可以{@link #reset()}后重复使用
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+final class Murmur3Hash128 extends OutputStream {
+    private static final int BLOCK_SIZE = 16;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private long length;
+    private long h1;
+    private long h2;
+
+    void reset() {
+        blockLength = 0;
+        length = 0;
+        h1 = 0;
+        h2 = 0;
+    }
+
+    @Override
+    public void write(int b) {
+        block[blockLength++] = (byte) b;
+        length++;
+        if (blockLength == BLOCK_SIZE) {
+            processBlock();
+            blockLength = 0;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            write(b[i]);
+        }
+    }
+
+    /**
+     * 按UTF-16LE写入字符，不需要先转换为字节数组
+     *
+     * @param chars
+     * @param start
+     * @param end
+     */
+    void writeChars(CharSequence chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = chars.charAt(i);
+            write(c);
+            write(c >>> 8);
+        }
+    }
+
+    /**
+     * 结束计算并把128位的摘要按32位十六进制追加到key，之后需要{@link #reset()}才能再次使用
+     *
+     * @param key
+     */
+    void finishTo(StringBuilder key) {
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = blockLength - 1; i >= Long.BYTES; i--) {
+            k2 ^= (long) (block[i] & 0xff) << ((i - Long.BYTES) * Byte.SIZE);
+        }
+        for (int i = Math.min(blockLength, Long.BYTES) - 1; i >= 0; i--) {
+            k1 ^= (long) (block[i] & 0xff) << (i * Byte.SIZE);
+        }
+        if (blockLength > Long.BYTES) {
+            h2 ^= mixK2(k2);
+        }
+        if (blockLength > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        appendHex(key, h1);
+        appendHex(key, h2);
+    }
+
+    private void processBlock() {
+        h1 ^= mixK1(getLong(0));
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+        h2 ^= mixK2(getLong(Long.BYTES));
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private long getLong(int offset) {
+        long value = 0;
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            value = (value << Byte.SIZE) | (block[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static void appendHex(StringBuilder key, long value) {
+        for (int shift = Long.SIZE - 4; shift >= 0; shift -= 4) {
+            key.append(HEX_DIGITS[(int) (value >>> shift) & 0xf]);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.lang.Nullable;
+
+import pjq.commons.utils.CheckUtils;
+
+/**
+ * 缓存失效时间的随机抖动<br>
+ * 每个缓存项的失效时间在原失效时间的基础上随机增加[0, 抖动值]，避免同一时间写入的大量缓存在同一时间失效<br>
+ * 配置格式：<br>
+ * 1.百分比，例如"10%"，即随机增加原失效时间的0~10%<br>
+ * 2.秒数，例如"60"，即随机增加0~60秒
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public final class TtlJitter {
+    private static final String PERCENT_SUFFIX = "%";
+
+    private final double percent;
+    private final long maxJitterNanos;
+
+    private TtlJitter(double percent, long maxJitterNanos) {
+        this.percent = percent;
+        this.maxJitterNanos = maxJitterNanos;
+    }
+
+    /**
+     * 解析抖动配置
+     *
+     * @param value
+     * @return 配置为空、格式错误或抖动值不大于0时返回null
+     */
+    @Nullable
+    public static TtlJitter parse(@Nullable String value) {
+        if (CheckUtils.isEmpty(value)) {
+            return null;
+        }
+
+        try {
+            String jitter = value.trim();
+            if (jitter.endsWith(PERCENT_SUFFIX)) {
+                double percent = Double.parseDouble(jitter.substring(0, jitter.length() - 1));
+                return percent > 0 ? new TtlJitter(percent / 100, 0) : null;
+            }
+
+            long seconds = Long.parseLong(jitter);
+            return seconds > 0 ? new TtlJitter(0, Duration.ofSeconds(seconds).toNanos()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 对失效时间增加随机抖动
+     *
+     * @param ttl
+     * @return
+     */
+    public Duration apply(Duration ttl) {
+        return Duration.ofNanos(applyNanos(ttl.toNanos()));
+    }
+
+    /**
+     * 对失效时间增加随机抖动
+     *
+     * @param ttlNanos
+     * @return
+     */
+    public long applyNanos(long ttlNanos) {
+        long maxJitter = percent > 0 ? (long) (ttlNanos * percent) : maxJitterNanos;
+        if (maxJitter <= 0) {
+            return ttlNanos;
+        }
+        return ttlNanos + ThreadLocalRandom.current().nextLong(maxJitter + 1);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.caffeine;
+
+import org.springframework.cache.support.NullValue;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+/**
+ * 按估算字节数计算权重的Caffeine权重计算器<br>
+ * 配合maximumWeight使用，使缓存按占用的字节数淘汰
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public class CacheValueWeigher implements Weigher<Object, Object> {
+    private final CacheValueSizeEstimator sizeEstimator;
+
+    public CacheValueWeigher(CacheValueSizeEstimator sizeEstimator) {
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+        Object userValue = StoreValueWrapper.unwrap(value);
+        if (userValue instanceof NullValue) {
+            return 1;
+        }
+
+        long size = sizeEstimator.estimate(key, userValue);
+        return (int) Math.max(1, Math.min(size, Integer.MAX_VALUE));
+    }
+}
@@ -32,20 +32,39 @@
 package pjq.springboot.config.cache.caffeine;
 
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.unit.DataSize;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
 
 import lombok.extern.slf4j.Slf4j;
+import pjq.springboot.config.cache.CacheCustomProperties;
+import pjq.springboot.config.cache.CacheNameSpec;
+import pjq.springboot.config.cache.TtlJitter;
+import pjq.springboot.config.cache.metrics.CacheMetrics;
+import pjq.springboot.config.cache.metrics.MicrometerStatsCounter;
+import pjq.springboot.config.multitenant.MultiTenantInfoHolder;
 import pjq.springboot.constant.CacheConstants;
 import pjq.springboot.constant.CacheConstants.CacheManagerNames;
 
@@ -61,23 +80,93 @@ import pjq.springboot.constant.CacheConstants.CacheManagerNames;
 public class CaffeineCacheConfig {
     private static final int MAXIMUM_SIZE = 1000;
     private static final int MAXIMUM_SIZE_100 = 100;
+    private static final int REFRESH_THREADS = 4;
+    private static final int REFRESH_QUEUE_CAPACITY = 1000;
 
+    /**
+     * 按字节数限制本地缓存大小时使用的权重计算器<br>
+     * 有{@link CacheValueSizeEstimator}类型的Bean时使用该Bean估算缓存项大小，否则使用{@link SerializedSizeEstimator}
+     *
+     * @param sizeEstimatorProvider
+     * @return
+     */
+    @Bean
+    public CacheValueWeigher cacheValueWeigher(ObjectProvider<CacheValueSizeEstimator> sizeEstimatorProvider) {
+        return new CacheValueWeigher(sizeEstimatorProvider.getIfAvailable(SerializedSizeEstimator::new));
+    }
+
+    /**
+     * 根据堆内存压力调整本地缓存大小的控制器，启用pjq.cache.adaptive-sizing.enabled时加载<br>
+     * pjq的Caffeine cacheManager及两级缓存的本地缓存创建时都会登记到该控制器
+     *
+     * @param cacheCustomProperties
+     * @param meterRegistryProvider
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = CacheConstants.CACHE_ADAPTIVE_SIZING_ENABLED, havingValue = "true")
+    public HeapPressureCacheSizer heapPressureCacheSizer(CacheCustomProperties cacheCustomProperties,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new HeapPressureCacheSizer(cacheCustomProperties.getAdaptiveSizing(),
+                meterRegistryProvider.getIfAvailable());
+    }
+
+    /**
+     * 本地缓存快照，启用pjq.cache.snapshot.enabled时加载<br>
+     * 应用停止时保存默认及动态配置的Caffeine cacheManager中的缓存，启动时在Web服务接收请求前恢复；
+     * 需要同时通过pjq.cache.snapshot.directory指定应用专用的快照目录
+     *
+     * @param cacheCustomProperties
+     * @param caffeineCacheManager
+     * @param dynamicCacheManager
+     * @return
+     */
     @Bean
-    public Caffeine<Object, Object> defaultCaffeineConfig() {
-        return Caffeine.newBuilder().maximumSize(MAXIMUM_SIZE).expireAfterWrite(CacheConstants.DEFAULT_EXPIRE);
+    @ConditionalOnProperty(value = CacheConstants.CACHE_SNAPSHOT_ENABLED, havingValue = "true")
+    public CaffeineCacheSnapshotter caffeineCacheSnapshotter(CacheCustomProperties cacheCustomProperties,
+            @Qualifier(CacheManagerNames.CAFFEINE_CACHE_DEFAULT_MANAGER) CacheManager caffeineCacheManager,
+            @Qualifier(CacheManagerNames.CAFFEINE_CACHE_DYNAMIC_CONFIG_MANAGER) CacheManager dynamicCacheManager) {
+        Map<String, CacheManager> cacheManagers = new LinkedHashMap<>();
+        cacheManagers.put(CacheManagerNames.CAFFEINE_CACHE_DEFAULT_MANAGER, caffeineCacheManager);
+        cacheManagers.put(CacheManagerNames.CAFFEINE_CACHE_DYNAMIC_CONFIG_MANAGER, dynamicCacheManager);
+        return new CaffeineCacheSnapshotter(cacheCustomProperties.getSnapshot(), cacheManagers);
+    }
+
+    @Bean
+    public Caffeine<Object, Object> defaultCaffeineConfig(CacheCustomProperties cacheCustomProperties,
+            CacheValueWeigher cacheValueWeigher) {
+        return newDefaultBuilder(cacheCustomProperties, cacheValueWeigher);
     }
 
     /**
-     * 模块默认cacheManager
+     * 模块默认cacheManager<br>
+     * 1.启用pjq.cache.metrics-enabled时记录缓存指标<br>
+     * 2.配置了pjq.cache.maximum-weight时按估算的字节数限制各缓存的大小<br>
+     * 3.启用pjq.cache.adaptive-sizing.enabled时根据堆内存压力调整各缓存的大小
      *
      * @param defaultCaffeineConfig
      * @return
      */
     @Primary
     @Bean(CacheManagerNames.CAFFEINE_CACHE_DEFAULT_MANAGER)
-    public CacheManager caffeineCacheManager(Caffeine<Object, Object> defaultCaffeineConfig) {
+    public CacheManager caffeineCacheManager(Caffeine<Object, Object> defaultCaffeineConfig,
+            CacheCustomProperties cacheCustomProperties, CacheValueWeigher cacheValueWeigher,
+            ObjectProvider<CacheMetrics> cacheMetricsProvider,
+            ObjectProvider<HeapPressureCacheSizer> heapPressureCacheSizerProvider) {
         log.info("加载默认的Caffeine缓存管理器(同时作为应用的默认缓存管理器):{}", CacheManagerNames.CAFFEINE_CACHE_DEFAULT_MANAGER);
-        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        CacheMetrics cacheMetrics = cacheMetricsProvider.getIfAvailable();
+        HeapPressureCacheSizer heapPressureCacheSizer = heapPressureCacheSizerProvider.getIfAvailable();
+        CaffeineCacheManager caffeineCacheManager = cacheMetrics == null && heapPressureCacheSizer == null
+                ? new CaffeineCacheManager() : new CaffeineCacheManager() {
+                    @Override
+                    protected Cache<Object, Object> createNativeCaffeineCache(String name) {
+                        //默认的builder是共用的，记录指标时每个缓存需要单独的builder
+                        Cache<Object, Object> cache = cacheMetrics == null ? super.createNativeCaffeineCache(name)
+                                : recordStats(newDefaultBuilder(cacheCustomProperties, cacheValueWeigher),
+                                        cacheMetrics, CacheManagerNames.CAFFEINE_CACHE_DEFAULT_MANAGER, name).build();
+                        return register(cache, heapPressureCacheSizer);
+                    }
+                };
         caffeineCacheManager.setCaffeine(defaultCaffeineConfig);
         return caffeineCacheManager;
     }
@@ -85,47 +174,200 @@ public class CaffeineCacheConfig {
     /**
      * 根据cacheName实现动态缓存配置的manager<br>
      * 1.需要@{@link Cacheable}等显式指定cacheManager={@link CacheManagerNames#CAFFEINE_CACHE_DYNAMIC_CONFIG_MANAGER}<br>
-     * 2.目前只实现了动态失效时间，有需要可再扩展
+     * 2.支持的配置见{@link CacheNameSpec}，可以在cacheName中配置，例如{@code orders#600;max=50000;refresh=300}，
+     * 也可以通过pjq.cache.specs配置<br>
+     * 3.{@code @Cacheable(sync = true)}时，Caffeine本身会合并同一key的并发加载，只有一个线程执行方法<br>
+     * 4.失效时间抖动默认使用pjq.cache.ttl-jitter配置，也可以在cacheName中单独配置，例如{@code orders#600;jitter=10%}<br>
+     * 5.启用pjq.cache.metrics-enabled时记录缓存指标<br>
+     * 6.配置了weigh=bytes或maxWeight的缓存按估算的字节数限制大小，没有配置max的缓存在配置了pjq.cache.maximum-weight时同样按字节数限制<br>
+     * 7.启用pjq.cache.adaptive-sizing.enabled时根据堆内存压力调整各缓存的大小<br>
+     * 8.配置了offHeap的缓存，因容量限制淘汰的缓存项保存到堆外存储，再次访问时取回，见{@link OffHeapStore}
      *
      * @param defaultCaffeineConfig
      * @return
      */
     @Bean(CacheManagerNames.CAFFEINE_CACHE_DYNAMIC_CONFIG_MANAGER)
-    public CacheManager dynamicConfigCaffeineCacheManager(Caffeine<Object, Object> defaultCaffeineConfig) {
+    public CacheManager dynamicConfigCaffeineCacheManager(Caffeine<Object, Object> defaultCaffeineConfig,
+            CacheCustomProperties cacheCustomProperties, CacheValueWeigher cacheValueWeigher,
+            ObjectProvider<CacheMetrics> cacheMetricsProvider,
+            ObjectProvider<HeapPressureCacheSizer> heapPressureCacheSizerProvider,
+            ObjectProvider<MultiTenantInfoHolder> multiTenantInfoHolderProvider) {
         log.info("加载可动态配置的Caffeine缓存管理器:{}", CacheManagerNames.CAFFEINE_CACHE_DYNAMIC_CONFIG_MANAGER);
+        CacheMetrics cacheMetrics = cacheMetricsProvider.getIfAvailable();
+        HeapPressureCacheSizer heapPressureCacheSizer = heapPressureCacheSizerProvider.getIfAvailable();
+        Executor refreshExecutor = genRefreshExecutor(multiTenantInfoHolderProvider.getIfAvailable());
         CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager() {
-            private Map<String, Caffeine<Object, Object>> cacheBuilderMap = new HashMap<>();
+            private final ConcurrentMap<String, CacheNameSpec> cacheNameSpecMap = new ConcurrentHashMap<>();
+            private final ConcurrentMap<String, Caffeine<Object, Object>> cacheBuilderMap =
+                    new ConcurrentHashMap<>();
+            private final ConcurrentMap<String, OffHeapStore> offHeapStoreMap = new ConcurrentHashMap<>();
 
             @Override
             protected Cache<Object, Object> createNativeCaffeineCache(String name) {
-                try {
-                    //根据cacheName后面的'#'号分隔的秒数，动态创建对应的cache对象
-                    if (cacheBuilderMap.containsKey(name)) {
-                        return cacheBuilderMap.get(name).build();
-                    }
+                return register(cacheBuilderMap.computeIfAbsent(name, this::genCacheBuilder).build(),
+                        heapPressureCacheSizer);
+            }
 
-                    if (!name.contains("#")) {
-                        return super.createNativeCaffeineCache(name); //没有Duration则返回默认的
-                    }
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                Duration refreshAfterWrite = getCacheNameSpec(name).getRefreshAfterWrite();
+                if (refreshAfterWrite != null && refreshExecutor != null) {
+                    return new RefreshAheadCaffeineCache(name, cache, isAllowNullValues(), refreshAfterWrite,
+                            refreshExecutor);
+                }
+                OffHeapStore offHeapStore = offHeapStoreMap.get(name);
+                return offHeapStore == null ? super.adaptCaffeineCache(name, cache)
+                        : new OffHeapTieredCaffeineCache(name, cache, isAllowNullValues(), offHeapStore);
+            }
 
-                    Long expireDurationSeconds = Long.valueOf(name.substring(name.indexOf("#") + 1));
-                    if (expireDurationSeconds <= 0) {
-                        return super.createNativeCaffeineCache(name); //Duration解析错误则返回默认的
-                    }
+            private CacheNameSpec getCacheNameSpec(String name) {
+                return cacheNameSpecMap.computeIfAbsent(name,
+                        k -> CacheNameSpec.parse(k, cacheCustomProperties.getSpecs()));
+            }
 
-                    return createWithBuilder(name, Caffeine.newBuilder().maximumSize(MAXIMUM_SIZE_100)
-                            .expireAfterWrite(Duration.ofSeconds(expireDurationSeconds)));
+            private Caffeine<Object, Object> genCacheBuilder(String name) {
+                Caffeine<Object, Object> builder;
+                try {
+                    //根据cacheName后面的'#'号分隔的配置，动态创建对应的cache对象
+                    CacheNameSpec cacheNameSpec = getCacheNameSpec(name);
+                    if (cacheNameSpec.isEmpty()) {
+                        //没有配置或配置解析错误则使用默认的
+                        builder = newDefaultBuilder(cacheCustomProperties, cacheValueWeigher);
+                    } else {
+                        //配置了失效时间但没有配置最大数量的，仍和原来一样最多100个
+                        long maximumSize = cacheNameSpec.getMaximumSize() != null ? cacheNameSpec.getMaximumSize()
+                                : cacheNameSpec.getTtl() != null ? MAXIMUM_SIZE_100 : MAXIMUM_SIZE;
+                        Long maximumWeight = null;
+                        if (cacheNameSpec.getMaximumWeight() != null) {
+                            maximumWeight = cacheNameSpec.getMaximumWeight();
+                        } else if (cacheNameSpec.isWeighBytes() || cacheNameSpec.getMaximumSize() == null) {
+                            maximumWeight = toBytes(cacheCustomProperties.getMaximumWeight());
+                        }
+                        Duration ttl = cacheNameSpec.getTtl() != null ? cacheNameSpec.getTtl()
+                                : CacheConstants.DEFAULT_EXPIRE;
+                        TtlJitter ttlJitter = cacheNameSpec.getTtlJitter() != null ? cacheNameSpec.getTtlJitter()
+                                : TtlJitter.parse(cacheCustomProperties.getTtlJitter());
+                        builder = bounded(maximumSize, maximumWeight, cacheValueWeigher);
+                        if (cacheNameSpec.getOffHeapSize() != null && cacheNameSpec.getRefreshAfterWrite() == null) {
+                            OffHeapStore offHeapStore = offHeapStoreMap.computeIfAbsent(name,
+                                    k -> new OffHeapStore(k, cacheNameSpec.getOffHeapSize(),
+                                            getOffHeapSlabSize(cacheNameSpec.getOffHeapSize())));
+                            //同步执行淘汰通知，使淘汰的缓存项保存到堆外后才执行之后的写入、删除
+                            builder.expireAfter(OffHeapTieredCaffeineCache.expiry(ttl, ttlJitter))
+                                    .removalListener(OffHeapTieredCaffeineCache.spillListener(offHeapStore))
+                                    .executor(Runnable::run);
+                        } else {
+                            builder = expireAfterWrite(builder, ttl, ttlJitter);
+                        }
+                    }
                 } catch (Exception e) {
-                    return super.createNativeCaffeineCache(name);
+                    builder = newDefaultBuilder(cacheCustomProperties, cacheValueWeigher);
                 }
+                return recordStats(builder, cacheMetrics, CacheManagerNames.CAFFEINE_CACHE_DYNAMIC_CONFIG_MANAGER,
+                        name);
             }
 
-            private Cache<Object, Object> createWithBuilder(String name, Caffeine<Object, Object> builder) {
-                cacheBuilderMap.put(name, builder);
-                return builder.build();
+            private int getOffHeapSlabSize(long offHeapSize) {
+                DataSize slabSize = cacheCustomProperties.getOffHeapSlabSize();
+                long bytes = slabSize != null && slabSize.toBytes() > 0 ? slabSize.toBytes() : offHeapSize;
+                return (int) Math.min(Math.min(bytes, offHeapSize), Integer.MAX_VALUE);
             }
         };
         caffeineCacheManager.setCaffeine(defaultCaffeineConfig);
         return caffeineCacheManager;
     }
+
+    private static Caffeine<Object, Object> newDefaultBuilder(CacheCustomProperties cacheCustomProperties,
+            CacheValueWeigher cacheValueWeigher) {
+        return expireAfterWrite(
+                bounded(MAXIMUM_SIZE, toBytes(cacheCustomProperties.getMaximumWeight()), cacheValueWeigher),
+                CacheConstants.DEFAULT_EXPIRE, TtlJitter.parse(cacheCustomProperties.getTtlJitter()));
+    }
+
+    /**
+     * 创建限制大小的builder，有最大字节数时按字节数限制，否则按缓存项数量限制
+     *
+     * @param maximumSize
+     * @param maximumWeight
+     * @param cacheValueWeigher
+     * @return
+     */
+    private static Caffeine<Object, Object> bounded(long maximumSize, @Nullable Long maximumWeight,
+            CacheValueWeigher cacheValueWeigher) {
+        return maximumWeight != null ? Caffeine.newBuilder().maximumWeight(maximumWeight).weigher(cacheValueWeigher)
+                : Caffeine.newBuilder().maximumSize(maximumSize);
+    }
+
+    @Nullable
+    private static Long toBytes(@Nullable DataSize dataSize) {
+        return dataSize != null && dataSize.toBytes() > 0 ? dataSize.toBytes() : null;
+    }
+
+    /**
+     * 有缓存指标记录器时，为每个缓存单独设置统计计数器
+     *
+     * @param builder
+     * @param cacheMetrics
+     * @param managerName
+     * @param name
+     * @return
+     */
+    private static Caffeine<Object, Object> recordStats(Caffeine<Object, Object> builder,
+            @Nullable CacheMetrics cacheMetrics, String managerName, String name) {
+        return cacheMetrics != null
+                ? builder.recordStats(() -> new MicrometerStatsCounter(cacheMetrics, managerName, name))
+                : builder;
+    }
+
+    /**
+     * 有堆内存压力控制器时，登记新创建的缓存
+     *
+     * @param cache
+     * @param heapPressureCacheSizer
+     * @return
+     */
+    private static Cache<Object, Object> register(Cache<Object, Object> cache,
+            @Nullable HeapPressureCacheSizer heapPressureCacheSizer) {
+        return heapPressureCacheSizer != null ? heapPressureCacheSizer.register(cache) : cache;
+    }
+
+    /**
+     * 异步刷新缓存使用的线程池<br>
+     * 1.不注册为Bean，避免影响SpringBoot默认的TaskExecutor；核心线程在有刷新任务时才创建，使用守护线程<br>
+     * 2.多租户模式下通过{@link MultiTenantInfoHolder#getContextTaskDecorator()}把租户上下文传递到刷新线程，
+     * 没有提供时不启用异步刷新
+     *
+     * @param multiTenantInfoHolder
+     * @return 不启用异步刷新时返回null
+     */
+    @Nullable
+    private static Executor genRefreshExecutor(@Nullable MultiTenantInfoHolder multiTenantInfoHolder) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("caffeine-cache-refresh-");
+        threadFactory.setDaemon(true);
+        Executor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(REFRESH_QUEUE_CAPACITY), threadFactory);
+        if (multiTenantInfoHolder == null) {
+            return executor;
+        }
+
+        Executor contextExecutor = multiTenantInfoHolder.decorateExecutor(executor);
+        if (contextExecutor == null) {
+            log.warn("已启用多租户模式但没有提供传递租户上下文的TaskDecorator，Caffeine缓存的refresh配置不生效");
+        }
+        return contextExecutor;
+    }
+
+    /**
+     * 设置写入后的失效时间，有抖动配置时每个缓存项单独计算失效时间
+     *
+     * @param builder
+     * @param ttl
+     * @param ttlJitter
+     * @return
+     */
+    private static Caffeine<Object, Object> expireAfterWrite(Caffeine<Object, Object> builder, Duration ttl,
+            @Nullable TtlJitter ttlJitter) {
+        return ttlJitter != null ? builder.expireAfter(new JitteredExpiry(ttl, ttlJitter))
+                : builder.expireAfterWrite(ttl);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,487 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.caffeine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import lombok.extern.slf4j.Slf4j;
+import pjq.springboot.config.cache.CacheCustomProperties;
+import pjq.springboot.config.cache.CacheNameSpec;
+
+/**
+ * Caffeine缓存内容的快照，用于应用重启后恢复本地缓存<br>
+ * 1.应用停止时(Web服务已停止接收请求后)，把选定缓存中访问频率最高的缓存项及其剩余失效时间写入本地文件；
+ * 应用启动时(Web服务开始接收请求前)并行加载快照，加载完成后删除快照文件<br>
+ * 2.每个cacheManager的每个缓存对应一个快照文件，以流方式写入，加载时使用内存映射读取<br>
+ * 3.缓存key和值使用JDK序列化，没有实现{@link java.io.Serializable}的缓存项不保存<br>
+ * 4.按cacheName动态配置失效时间抖动的缓存，恢复后保持原来的剩余失效时间；其它缓存恢复后重新计算失效时间，
+ * 失效时间因此延长超过pjq.cache.snapshot.max-ttl-extension的缓存项不恢复<br>
+ * 5.快照文件中不能反序列化的缓存项跳过，长度不合法时停止加载该文件<br>
+ * 6.快照目录必须通过pjq.cache.snapshot.directory指定应用专用的目录，目录按只有当前用户可读写的权限创建；
+ * 目录或快照文件不属于当前用户、或者其它用户可写时不加载也不写入，避免反序列化其它用户放入的内容
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+public class CaffeineCacheSnapshotter implements SmartLifecycle {
+    /**
+     * 在Web服务启动前启动，在Web服务停止后停止
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final int FILE_MAGIC = 0x504A5143;
+    private static final int FILE_VERSION = 1;
+    private static final String FILE_SUFFIX = ".snapshot";
+    private static final String FILE_NAME_SEPARATOR = "@";
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+
+    private final CacheCustomProperties.Snapshot properties;
+    private final Map<String, CacheManager> cacheManagers;
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter();
+
+    private volatile boolean running;
+
+    /**
+     * @param properties
+     * @param cacheManagers
+     *         key为cacheManager的名称，用于区分快照文件
+     */
+    public CaffeineCacheSnapshotter(CacheCustomProperties.Snapshot properties,
+            Map<String, CacheManager> cacheManagers) {
+        Assert.hasText(properties.getDirectory(), "pjq.cache.snapshot.directory must be set when snapshot is enabled");
+        this.properties = properties;
+        this.cacheManagers = cacheManagers;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Path directory = Paths.get(properties.getDirectory());
+        if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        if (!isTrusted(directory)) {
+            log.warn("本地缓存快照目录[{}]不属于当前用户或其它用户可写，不加载快照", directory);
+            return;
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(file -> file.getFileName().toString().endsWith(FILE_SUFFIX)).filter(file -> {
+                if (Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS) && isTrusted(file)) {
+                    return true;
+                }
+                log.warn("本地缓存快照[{}]不属于当前用户或其它用户可写，不加载该快照", file);
+                return false;
+            }).forEach(files::add);
+        } catch (IOException e) {
+            log.warn("读取本地缓存快照目录[{}]异常", directory, e);
+            return;
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        AtomicInteger restoredCount = new AtomicInteger();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("caffeine-cache-restore-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(files.size(), properties.getParallelism())),
+                threadFactory);
+        try {
+            files.forEach(file -> executor.execute(() -> restoredCount.addAndGet(restore(file))));
+            executor.shutdown();
+            if (!executor.awaitTermination(properties.getRestoreTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("加载本地缓存快照超过{}，不再等待", properties.getRestoreTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("加载本地缓存快照完成，共{}个文件{}个缓存项，耗时{}ms", files.size(), restoredCount.get(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Path directory = Paths.get(properties.getDirectory());
+        try {
+            if (!Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+                if (isPosix()) {
+                    Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+                } else {
+                    Files.createDirectories(directory);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("创建本地缓存快照目录[{}]异常", directory, e);
+            return;
+        }
+        if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS) || !isTrusted(directory)) {
+            log.warn("本地缓存快照目录[{}]不属于当前用户或其它用户可写，不保存快照", directory);
+            return;
+        }
+
+        cacheManagers.forEach((managerName, cacheManager) -> cacheManager.getCacheNames().forEach(name -> {
+            org.springframework.cache.Cache cache = cacheManager.getCache(name);
+            if (cache instanceof CaffeineCache && isSelected(name)) {
+                snapshot(directory.resolve(managerName + FILE_NAME_SEPARATOR + encodeFileName(name) + FILE_SUFFIX),
+                        ((CaffeineCache) cache).getNativeCache());
+            }
+        }));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private boolean isSelected(String name) {
+        List<String> cacheNames = properties.getCacheNames();
+        if (cacheNames == null || cacheNames.isEmpty()) {
+            return true;
+        }
+        int ttlIndex = name.indexOf(CacheNameSpec.TTL_SEPARATOR);
+        return cacheNames.contains(ttlIndex < 0 ? name : name.substring(0, ttlIndex));
+    }
+
+    /**
+     * 把缓存中访问频率最高的缓存项写入快照文件<br>
+     * 先写入临时文件再替换，避免停止过程被中断时留下不完整的快照
+     *
+     * @param file
+     * @param cache
+     */
+    private void snapshot(Path file, Cache<Object, Object> cache) {
+        Map<Object, Object> entries = hottest(cache, properties.getMaxEntriesPerCache());
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Optional<Policy.VarExpiration<Object, Object>> varExpiration = cache.policy().expireVariably();
+        Optional<Policy.Expiration<Object, Object>> expiration = cache.policy().expireAfterWrite();
+        long now = System.currentTimeMillis();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        int count = 0;
+        try {
+            Files.deleteIfExists(tempFile);
+            if (isPosix()) {
+                Files.createFile(tempFile, PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE));
+            } else {
+                Files.createFile(tempFile);
+            }
+        } catch (IOException e) {
+            log.warn("写入本地缓存快照[{}]异常", file, e);
+            return;
+        }
+        try (OutputStream outputStream = Files.newOutputStream(tempFile);
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                Long remainingMillis = getRemainingMillis(entry.getKey(), varExpiration, expiration);
+                if (remainingMillis != null && remainingMillis <= 0) {
+                    continue;
+                }
+
+                byte[] key;
+                byte[] value;
+                try {
+                    key = serializer.convert(entry.getKey());
+                    value = serializer.convert(StoreValueWrapper.unwrap(entry.getValue()));
+                } catch (Exception e) {
+                    continue; //不能序列化的缓存项不保存
+                }
+                output.writeLong(remainingMillis != null ? now + remainingMillis : Long.MAX_VALUE);
+                output.writeInt(key.length);
+                output.write(key);
+                output.writeInt(value.length);
+                output.write(value);
+                count++;
+            }
+        } catch (IOException e) {
+            log.warn("写入本地缓存快照[{}]异常", file, e);
+            return;
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("写入本地缓存快照[{}]，共{}个缓存项", file, count);
+        } catch (IOException e) {
+            log.warn("写入本地缓存快照[{}]异常", file, e);
+        }
+    }
+
+    /**
+     * 加载快照文件到对应的缓存，加载后删除快照文件
+     *
+     * @param file
+     * @return 加载的缓存项数量
+     */
+    private int restore(Path file) {
+        String fileName = file.getFileName().toString();
+        fileName = fileName.substring(0, fileName.length() - FILE_SUFFIX.length());
+        int separatorIndex = fileName.indexOf(FILE_NAME_SEPARATOR);
+        CacheManager cacheManager = separatorIndex < 0 ? null
+                : cacheManagers.get(fileName.substring(0, separatorIndex));
+        String name = separatorIndex < 0 ? null : decodeFileName(fileName.substring(separatorIndex + 1));
+        org.springframework.cache.Cache cache = cacheManager != null && name != null && isSelected(name)
+                ? cacheManager.getCache(name) : null;
+
+        int count = 0;
+        try {
+            if (cache instanceof CaffeineCache) {
+                count = restore(file, (CaffeineCache) cache);
+            }
+        } catch (Exception e) {
+            log.warn("加载本地缓存快照[{}]异常", file, e);
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("删除本地缓存快照[{}]异常", file, e);
+            }
+        }
+        return count;
+    }
+
+    private int restore(Path file, CaffeineCache cache) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < Integer.BYTES * 2 || buffer.getInt() != FILE_MAGIC
+                || buffer.getInt() != FILE_VERSION) {
+            return 0;
+        }
+
+        Policy<Object, Object> policy = cache.getNativeCache().policy();
+        Optional<Policy.VarExpiration<Object, Object>> varExpiration = policy.expireVariably();
+        Optional<Policy.Expiration<Object, Object>> expiration = policy.expireAfterWrite();
+        long maxTtlExtensionMillis = properties.getMaxTtlExtension().toMillis();
+        long now = System.currentTimeMillis();
+        int count = 0;
+        while (buffer.hasRemaining()) {
+            //长度不合法时后面的内容都无法定位，不再继续读取
+            if (buffer.remaining() < Long.BYTES + Integer.BYTES) {
+                log.warn("本地缓存快照[{}]不完整，已加载{}个缓存项", file, count);
+                break;
+            }
+            long expireTime = buffer.getLong();
+            byte[] key = readBytes(buffer);
+            byte[] value = key != null ? readBytes(buffer) : null;
+            if (value == null) {
+                log.warn("本地缓存快照[{}]的缓存项长度不合法，已加载{}个缓存项", file, count);
+                break;
+            }
+            long remainingMillis = expireTime - now;
+            if (remainingMillis <= 0) {
+                continue;
+            }
+
+            //固定失效时间的缓存恢复后重新计算失效时间，剩余失效时间过短的缓存项不恢复，避免失效时间被延长太多
+            if (expireTime != Long.MAX_VALUE && !varExpiration.isPresent() && expiration.isPresent()
+                    && expiration.get().getExpiresAfter(TimeUnit.MILLISECONDS) - remainingMillis
+                            > maxTtlExtensionMillis) {
+                continue;
+            }
+
+            try {
+                Object cacheKey = deserializer.convert(key);
+                //通过Spring的缓存写入，使缓存值按该缓存的方式包装
+                Object storeValue = deserializer.convert(value);
+                Object userValue = storeValue instanceof NullValue ? null : storeValue;
+                if (expireTime != Long.MAX_VALUE && cache instanceof OffHeapTieredCaffeineCache) {
+                    //失效时刻和缓存值一起保存，不能只修改Caffeine中的失效时间
+                    ((OffHeapTieredCaffeineCache) cache).put(cacheKey, userValue,
+                            TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+                } else {
+                    cache.put(cacheKey, userValue);
+                    if (expireTime != Long.MAX_VALUE && varExpiration.isPresent()) {
+                        varExpiration.get().setExpiresAfter(cacheKey, remainingMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+                count++;
+            } catch (Exception e) {
+                log.debug("本地缓存快照[{}]的缓存项加载异常，跳过该缓存项", file, e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 读取长度及对应的字节数组
+     *
+     * @param buffer
+     * @return 长度不合法或超过剩余的内容时返回null
+     */
+    @Nullable
+    private static byte[] readBytes(MappedByteBuffer buffer) {
+        if (buffer.remaining() < Integer.BYTES) {
+            return null;
+        }
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Map<Object, Object> hottest(Cache<Object, Object> cache, int limit) {
+        //没有容量限制的缓存没有访问频率信息，按任意顺序保存
+        return cache.policy().eviction().map(eviction -> eviction.hottest(limit)).orElseGet(() -> {
+            Map<Object, Object> entries = new LinkedHashMap<>();
+            for (Map.Entry<Object, Object> entry : cache.asMap().entrySet()) {
+                if (entries.size() >= limit) {
+                    break;
+                }
+                entries.put(entry.getKey(), entry.getValue());
+            }
+            return entries;
+        });
+    }
+
+    @Nullable
+    private static Long getRemainingMillis(Object key, Optional<Policy.VarExpiration<Object, Object>> varExpiration,
+            Optional<Policy.Expiration<Object, Object>> expiration) {
+        if (varExpiration.isPresent()) {
+            OptionalLong remaining = varExpiration.get().getExpiresAfter(key, TimeUnit.MILLISECONDS);
+            return remaining.isPresent() ? remaining.getAsLong() : null;
+        }
+        if (expiration.isPresent()) {
+            Policy.Expiration<Object, Object> policy = expiration.get();
+            OptionalLong age = policy.ageOf(key, TimeUnit.MILLISECONDS);
+            return age.isPresent() ? policy.getExpiresAfter(TimeUnit.MILLISECONDS) - age.getAsLong() : null;
+        }
+        return null;
+    }
+
+    /**
+     * 文件属于当前用户，且支持POSIX权限时组和其它用户不可写
+     *
+     * @param path
+     * @return
+     */
+    private static boolean isTrusted(Path path) {
+        try {
+            UserPrincipal owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS);
+            UserPrincipal currentUser = FileSystems.getDefault().getUserPrincipalLookupService()
+                    .lookupPrincipalByName(System.getProperty("user.name"));
+            if (!owner.equals(currentUser)) {
+                return false;
+            }
+            if (!isPosix()) {
+                return true;
+            }
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS);
+            return !permissions.contains(PosixFilePermission.GROUP_WRITE)
+                    && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static String encodeFileName(String name) {
+        try {
+            return URLEncoder.encode(name, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nullable
+    private static String decodeFileName(String fileName) {
+        try {
+            return URLDecoder.decode(fileName, "UTF-8");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.caffeine;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.lang.Nullable;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+import pjq.springboot.config.cache.CacheCustomProperties;
+
+/**
+ * 根据堆内存压力调整本地缓存大小的控制器<br>
+ * 1.监听GC完成通知及老年代的回收后使用量阈值通知，每次收到通知时读取老年代GC后的使用率<br>
+ * 2.使用率达到高水位时，按收缩比例缩小所有已登记缓存的最大数量(或最大字节数)；低于低水位时按增长比例逐步恢复，最多恢复到原配置值<br>
+ * 3.两次调整之间至少间隔配置的冷却时间，避免频繁的年轻代GC使缓存被连续收缩<br>
+ * 4.有{@link MeterRegistry}时通过指标输出当前缩放比例、老年代使用率及调整次数，用于调优阈值
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+public class HeapPressureCacheSizer implements SmartInitializingSingleton, DisposableBean {
+    private static final String GC_NOTIFICATION_TYPE = "com.sun.management.gc.notification";
+
+    private final CacheCustomProperties.AdaptiveSizing properties;
+    private final Map<Cache<?, ?>, Long> baseMaximums = new ConcurrentHashMap<>();
+    private final List<MemoryPoolMXBean> oldGenPools = new ArrayList<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::handleNotification;
+    private final AtomicLong lastAdjustTime = new AtomicLong();
+
+    private volatile double scale = 1.0;
+    private volatile double heapUsage;
+
+    @Nullable
+    private final Counter shrinkCounter;
+    @Nullable
+    private final Counter growCounter;
+
+    public HeapPressureCacheSizer(CacheCustomProperties.AdaptiveSizing properties,
+            @Nullable MeterRegistry meterRegistry) {
+        this.properties = properties;
+        if (meterRegistry != null) {
+            Gauge.builder("pjq.cache.adaptive.scale", this, sizer -> sizer.scale).description("本地缓存大小的当前缩放比例")
+                    .register(meterRegistry);
+            Gauge.builder("pjq.cache.adaptive.heap.usage", this, sizer -> sizer.heapUsage)
+                    .description("最近一次GC后老年代的使用率").register(meterRegistry);
+            shrinkCounter = Counter.builder("pjq.cache.adaptive.adjustments").tag("direction", "shrink")
+                    .description("本地缓存大小的调整次数").register(meterRegistry);
+            growCounter = Counter.builder("pjq.cache.adaptive.adjustments").tag("direction", "grow")
+                    .description("本地缓存大小的调整次数").register(meterRegistry);
+        } else {
+            shrinkCounter = null;
+            growCounter = null;
+        }
+    }
+
+    /**
+     * 登记需要根据堆内存压力调整大小的缓存<br>
+     * 以登记时的最大数量(或最大字节数)作为原配置值，并立即按当前缩放比例调整
+     *
+     * @param cache
+     * @return 登记的缓存
+     */
+    public <K, V> Cache<K, V> register(Cache<K, V> cache) {
+        cache.policy().eviction().ifPresent(eviction -> {
+            baseMaximums.put(cache, eviction.getMaximum());
+            applyScale(eviction, eviction.getMaximum(), scale);
+        });
+        return cache;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            //只有老年代(及不分代收集器的整个堆)支持使用量阈值，eden和survivor区不支持
+            if (MemoryType.HEAP.equals(pool.getType()) && pool.isUsageThresholdSupported()
+                    && pool.isCollectionUsageThresholdSupported()) {
+                oldGenPools.add(pool);
+                long max = getMax(pool.getUsage());
+                pool.setCollectionUsageThreshold((long) (max * properties.getHighWatermark()));
+            }
+        }
+        if (oldGenPools.isEmpty()) {
+            log.warn("没有找到支持使用量阈值的老年代内存池，不根据堆内存压力调整本地缓存大小");
+            return;
+        }
+
+        addListener(ManagementFactory.getMemoryMXBean());
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            addListener(gcBean);
+        }
+        log.info("已启用根据堆内存压力调整本地缓存大小，高水位{}，低水位{}", properties.getHighWatermark(),
+                properties.getLowWatermark());
+    }
+
+    @Override
+    public void destroy() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                //已移除
+            }
+        }
+        emitters.clear();
+    }
+
+    private void addListener(Object mxBean) {
+        if (mxBean instanceof NotificationEmitter) {
+            NotificationEmitter emitter = (NotificationEmitter) mxBean;
+            emitter.addNotificationListener(listener, null, null);
+            emitters.add(emitter);
+        }
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (GC_NOTIFICATION_TYPE.equals(type)
+                || MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+            try {
+                evaluate();
+            } catch (Exception e) {
+                log.warn("根据堆内存压力调整本地缓存大小异常", e);
+            }
+        }
+    }
+
+    private void evaluate() {
+        double usage = 0;
+        for (MemoryPoolMXBean pool : oldGenPools) {
+            MemoryUsage collectionUsage = pool.getCollectionUsage();
+            if (collectionUsage != null) {
+                usage = Math.max(usage, (double) collectionUsage.getUsed() / getMax(collectionUsage));
+            }
+        }
+        heapUsage = usage;
+
+        double newScale;
+        if (usage >= properties.getHighWatermark()) {
+            newScale = Math.max(properties.getMinScale(), scale * properties.getShrinkFactor());
+        } else if (usage <= properties.getLowWatermark()) {
+            newScale = Math.min(1.0, scale * properties.getGrowFactor());
+        } else {
+            return;
+        }
+        if (newScale == scale) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long lastTime = lastAdjustTime.get();
+        if (lastTime != 0 && now - lastTime < properties.getCooldown().toNanos()
+                || !lastAdjustTime.compareAndSet(lastTime, now)) {
+            return;
+        }
+
+        log.info("老年代GC后使用率为{}，本地缓存大小的缩放比例由{}调整为{}", String.format("%.2f", usage),
+                String.format("%.2f", scale), String.format("%.2f", newScale));
+        Counter counter = newScale < scale ? shrinkCounter : growCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        scale = newScale;
+        baseMaximums.forEach((cache, baseMaximum) -> cache.policy().eviction()
+                .ifPresent(eviction -> applyScale(eviction, baseMaximum, newScale)));
+    }
+
+    private static void applyScale(Policy.Eviction<?, ?> eviction, long baseMaximum, double scale) {
+        eviction.setMaximum(Math.max(1, (long) (baseMaximum * scale)));
+    }
+
+    private static long getMax(MemoryUsage usage) {
+        //部分内存池没有最大值，使用整个堆的最大值
+        return usage.getMax() > 0 ? usage.getMax() : Runtime.getRuntime().maxMemory();
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.caffeine;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.lang.Nullable;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 本地缓存的堆外存储<br>
+ * 1.使用固定大小的直接内存({@link ByteBuffer#allocateDirect(int)})分片，分片按需分配，总大小不超过配置的容量<br>
+ * 2.缓存项按写入顺序追加到当前分片，写满后切换到下一个分片；所有分片都已使用时复用最早写入的分片，
+ * 即按分片整体淘汰最早溢出的缓存项<br>
+ * 3.缓存值使用JDK序列化，没有实现{@link Serializable}的值不保存；key及其所在位置仍保存在堆内<br>
+ * 4.缓存项沿用在Caffeine中的失效时刻，已失效的缓存项不保存，取回后只保留剩余的失效时间
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+class OffHeapStore {
+    private static final int ENTRY_HEADER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final String name;
+    private final int slabSize;
+    private final ByteBuffer[] slabs;
+    private final List<List<Object>> slabKeys;
+    private final ConcurrentMap<Object, Long> index = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter();
+
+    private int currentSlab = -1;
+    private int writeOffset;
+
+    /**
+     * @param name
+     *         缓存名，用于日志
+     * @param capacity
+     *         堆外存储的总字节数
+     * @param slabSize
+     *         每个分片的字节数
+     */
+    OffHeapStore(String name, long capacity, int slabSize) {
+        this.name = name;
+        this.slabSize = slabSize;
+        int slabCount = (int) Math.min(Integer.MAX_VALUE, Math.max(2, capacity / slabSize));
+        this.slabs = new ByteBuffer[slabCount];
+        this.slabKeys = new ArrayList<>(slabCount);
+        for (int i = 0; i < slabCount; i++) {
+            slabKeys.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * 保存从堆内淘汰的缓存值
+     *
+     * @param key
+     * @param storeValue
+     * @param expireAtNanos
+     *         缓存项在Caffeine中的失效时刻({@link System#nanoTime()})
+     */
+    void put(Object key, @Nullable Object storeValue, long expireAtNanos) {
+        if (!(storeValue instanceof Serializable) || expireAtNanos - System.nanoTime() <= 0) {
+            return;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = serializer.convert(storeValue);
+        } catch (Exception e) {
+            log.debug("缓存[{}]的key[{}]序列化异常，不保存到堆外", name, key, e);
+            return;
+        }
+        int entrySize = ENTRY_HEADER_BYTES + bytes.length;
+        if (entrySize > slabSize) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (currentSlab < 0 || writeOffset + entrySize > slabSize) {
+                nextSlab();
+            }
+            ByteBuffer slab = slabs[currentSlab].duplicate();
+            slab.position(writeOffset);
+            slab.putLong(expireAtNanos).putInt(bytes.length).put(bytes);
+            index.put(key, toLocation(currentSlab, writeOffset));
+            slabKeys.get(currentSlab).add(key);
+            writeOffset += entrySize;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从堆外存储中取出缓存值，取出后堆外存储不再保存该缓存项
+     *
+     * @param key
+     * @return 缓存值及其原来的失效时刻，不存在或已失效时返回null
+     */
+    @Nullable
+    OffHeapTieredCaffeineCache.ExpiringValue remove(Object key) {
+        byte[] bytes;
+        long expireAtNanos;
+        lock.readLock().lock();
+        try {
+            Long location = index.remove(key);
+            if (location == null) {
+                return null;
+            }
+
+            ByteBuffer slab = slabs[toSlab(location)].duplicate();
+            slab.position(toOffset(location));
+            expireAtNanos = slab.getLong();
+            if (expireAtNanos - System.nanoTime() <= 0) {
+                return null;
+            }
+            bytes = new byte[slab.getInt()];
+            slab.get(bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            return new OffHeapTieredCaffeineCache.ExpiringValue(deserializer.convert(bytes), expireAtNanos);
+        } catch (Exception e) {
+            log.debug("缓存[{}]的key[{}]反序列化异常", name, key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 删除缓存项，占用的空间在分片被复用时释放
+     *
+     * @param key
+     */
+    void evict(Object key) {
+        index.remove(key);
+    }
+
+    void clear() {
+        index.clear();
+    }
+
+    private void nextSlab() {
+        currentSlab = (currentSlab + 1) % slabs.length;
+        writeOffset = 0;
+        if (slabs[currentSlab] == null) {
+            slabs[currentSlab] = ByteBuffer.allocateDirect(slabSize);
+            return;
+        }
+
+        //复用分片时，删除仍指向该分片的缓存项
+        int slab = currentSlab;
+        List<Object> keys = slabKeys.get(slab);
+        for (Object key : keys) {
+            index.computeIfPresent(key, (k, location) -> toSlab(location) == slab ? null : location);
+        }
+        keys.clear();
+    }
+
+    private static long toLocation(int slab, int offset) {
+        return ((long) slab << Integer.SIZE) | offset;
+    }
+
+    private static int toSlab(long location) {
+        return (int) (location >>> Integer.SIZE);
+    }
+
+    private static int toOffset(long location) {
+        return (int) location;
+    }
+}
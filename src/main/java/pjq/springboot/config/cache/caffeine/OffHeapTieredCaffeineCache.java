@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.lang.Nullable;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.RemovalListener;
+
+import pjq.springboot.config.cache.TtlJitter;
+
+/**
+ * 带堆外存储的Caffeine缓存<br>
+ * 1.因容量限制被Caffeine淘汰的缓存项通过{@link #spillListener(OffHeapStore)}保存到{@link OffHeapStore}，
+ * 再次访问时从堆外存储取回并重新放入Caffeine<br>
+ * 2.写入、删除及清空缓存时同时删除堆外存储中的对应缓存项，避免取回旧值<br>
+ * 3.创建Caffeine缓存时需要使用{@link #spillListener(OffHeapStore)}及同步执行的executor，
+ * 使淘汰的缓存项在触发淘汰的线程中保存到堆外存储，避免和之后的写入、删除乱序<br>
+ * 4.缓存值和其失效时刻一起保存，创建Caffeine缓存时需要使用{@link #expiry(Duration, TtlJitter)}；
+ * 淘汰的缓存项带着原来的失效时刻保存到堆外存储，取回后只保留剩余的失效时间
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+class OffHeapTieredCaffeineCache extends CaffeineCache {
+    private final OffHeapStore offHeapStore;
+
+    OffHeapTieredCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+            OffHeapStore offHeapStore) {
+        super(name, cache, allowNullValues);
+        this.offHeapStore = offHeapStore;
+    }
+
+    /**
+     * 把因容量限制被淘汰的缓存项保存到堆外存储的监听器
+     *
+     * @param offHeapStore
+     * @return
+     */
+    static RemovalListener<Object, Object> spillListener(OffHeapStore offHeapStore) {
+        return (key, value, cause) -> {
+            if (key != null && cause == RemovalCause.SIZE && value instanceof ExpiringValue) {
+                ExpiringValue expiringValue = (ExpiringValue) value;
+                offHeapStore.put(key, expiringValue.value, expiringValue.expireAtNanos);
+            }
+        };
+    }
+
+    /**
+     * 按缓存值中保存的失效时刻失效的策略<br>
+     * 新写入的缓存值按失效时间(有抖动配置时增加抖动)计算失效时刻，从堆外存储取回的缓存值沿用原来的失效时刻
+     *
+     * @param ttl
+     * @param ttlJitter
+     * @return
+     */
+    static Expiry<Object, Object> expiry(Duration ttl, @Nullable TtlJitter ttlJitter) {
+        long ttlNanos = ttl.toNanos();
+        return new Expiry<Object, Object>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                if (!(value instanceof ExpiringValue)) {
+                    return ttlJitter != null ? ttlJitter.applyNanos(ttlNanos) : ttlNanos;
+                }
+
+                ExpiringValue expiringValue = (ExpiringValue) value;
+                if (expiringValue.expireAtNanos == 0) {
+                    expiringValue.expireAtNanos = currentTime
+                            + (ttlJitter != null ? ttlJitter.applyNanos(ttlNanos) : ttlNanos);
+                }
+                return Math.max(expiringValue.expireAtNanos - currentTime, 0);
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(Object key) {
+        Object storeValue = super.lookup(key);
+        if (storeValue == null) {
+            //取回和写入在同一key的锁内完成，并发的put/evict不会被取回的旧值覆盖
+            storeValue = getNativeCache().asMap().computeIfAbsent(key, offHeapStore::remove);
+        }
+        return storeValue;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return super.get(key, () -> {
+            //在Caffeine的加载过程中取回，同一key的并发访问只取回一次；取回的值保持原来的失效时刻
+            ExpiringValue storeValue = offHeapStore.remove(key);
+            return storeValue != null ? (T) storeValue : valueLoader.call();
+        });
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        offHeapStore.evict(key);
+        super.put(key, value);
+    }
+
+    /**
+     * 写入缓存并指定剩余失效时间，用于从快照恢复等场景
+     *
+     * @param key
+     * @param value
+     * @param remainingNanos
+     */
+    void put(Object key, @Nullable Object value, long remainingNanos) {
+        offHeapStore.evict(key);
+        ExpiringValue storeValue = (ExpiringValue) toStoreValue(value);
+        storeValue.expireAtNanos = System.nanoTime() + remainingNanos;
+        getNativeCache().put(key, storeValue);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        ValueWrapper existing = get(key);
+        return existing != null ? existing : super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        offHeapStore.evict(key);
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        offHeapStore.evict(key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        offHeapStore.clear();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        offHeapStore.clear();
+        return super.invalidate();
+    }
+
+    @Override
+    protected Object toStoreValue(@Nullable Object userValue) {
+        //从堆外存储取回的值已经包装过
+        return userValue instanceof ExpiringValue ? userValue : new ExpiringValue(super.toStoreValue(userValue), 0);
+    }
+
+    @Override
+    protected Object fromStoreValue(@Nullable Object storeValue) {
+        return super.fromStoreValue(storeValue != null ? StoreValueWrapper.unwrap(storeValue) : null);
+    }
+
+    /**
+     * 带失效时刻的缓存值
+     */
+    static class ExpiringValue implements StoreValueWrapper {
+        private final Object value;
+
+        /**
+         * 失效时刻({@link System#nanoTime()})，0表示还没有计算，在写入Caffeine时由{@link #expiry(Duration, TtlJitter)}计算
+         */
+        private volatile long expireAtNanos;
+
+        ExpiringValue(Object value, long expireAtNanos) {
+            this.value = value;
+            this.expireAtNanos = expireAtNanos;
+        }
+
+        @Override
+        public Object getStoreValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.lang.Nullable;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 写入后超过指定时间即异步刷新的Caffeine缓存<br>
+ * 1.Spring的Caffeine缓存没有CacheLoader，无法使用Caffeine自身的refreshAfterWrite，这里在{@link #get(Object, Callable)}中判断并刷新<br>
+ * 2.缓存值和写入时间一起保存，读取时只返回缓存值；判断是否需要刷新时不计入Caffeine的命中统计<br>
+ * 3.刷新期间仍返回旧值，同一key同时只有一个刷新任务，刷新线程池已满时放弃本次刷新<br>
+ * 4.多租户模式下刷新线程池由{@link pjq.springboot.config.multitenant.MultiTenantInfoHolder#getContextTaskDecorator()}
+ * 传递租户上下文
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+class RefreshAheadCaffeineCache extends CaffeineCache {
+    private final long refreshAfterWriteNanos;
+    private final Executor refreshExecutor;
+    private final ConcurrentMap<Object, Boolean> refreshingKeys = new ConcurrentHashMap<>();
+
+    RefreshAheadCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+            Duration refreshAfterWrite, Executor refreshExecutor) {
+        super(name, cache, allowNullValues);
+        this.refreshAfterWriteNanos = refreshAfterWrite.toNanos();
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        //asMap().get不计入命中统计
+        Object storeValue = getNativeCache().asMap().get(key);
+        if (storeValue instanceof TimestampedValue
+                && System.nanoTime() - ((TimestampedValue) storeValue).writeTime >= refreshAfterWriteNanos) {
+            refreshAsync(key, valueLoader);
+        }
+        return super.get(key, valueLoader);
+    }
+
+    @Override
+    protected Object toStoreValue(@Nullable Object userValue) {
+        return new TimestampedValue(super.toStoreValue(userValue), System.nanoTime());
+    }
+
+    @Override
+    protected Object fromStoreValue(@Nullable Object storeValue) {
+        return super.fromStoreValue(storeValue != null ? StoreValueWrapper.unwrap(storeValue) : null);
+    }
+
+    private void refreshAsync(Object key, Callable<?> valueLoader) {
+        if (refreshingKeys.putIfAbsent(key, Boolean.TRUE) != null) {
+            return; //已在刷新中
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    put(key, valueLoader.call());
+                } catch (Exception e) {
+                    log.warn("异步刷新缓存[{}]的key[{}]异常", getName(), key, e);
+                } finally {
+                    refreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(key);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class TimestampedValue implements StoreValueWrapper {
+        private final Object value;
+        private final long writeTime;
+
+        @Override
+        public Object getStoreValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.caffeine;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * 默认的缓存项大小估算器<br>
+ * 1.字节数组、字符串等常见类型直接计算，其它对象按JSON序列化后的字节数估算<br>
+ * 2.序列化后的大小和实际占用的堆内存不完全一致，但和对象的规模成正比，足以让按字节数淘汰跟随实际内存变化<br>
+ * 3.序列化失败时按{@link #FALLBACK_SIZE}估算
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public class SerializedSizeEstimator implements CacheValueSizeEstimator {
+    private static final long FALLBACK_SIZE = 1024;
+    private static final long SCALAR_SIZE = 16;
+
+    @Override
+    public long estimate(Object key, Object value) {
+        return estimateObject(key) + estimateObject(value);
+    }
+
+    private static long estimateObject(Object object) {
+        if (object instanceof byte[]) {
+            return ((byte[]) object).length;
+        }
+        if (object instanceof CharSequence) {
+            return ((CharSequence) object).length() * 2L;
+        }
+        if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+            return SCALAR_SIZE;
+        }
+
+        try {
+            return JSON.toJSONBytes(object).length;
+        } catch (Exception e) {
+            return FALLBACK_SIZE;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.caffeine;
+
+/**
+ * 包装后保存到Caffeine中的缓存值<br>
+ * 部分缓存需要和缓存值一起保存额外信息(例如写入时间、失效时间)，直接访问Caffeine缓存内容时需要先取出实际的缓存值
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+interface StoreValueWrapper {
+    /**
+     * @return 实际的缓存值
+     */
+    Object getStoreValue();
+
+    /**
+     * 获取缓存中实际保存的值，用于需要直接访问Caffeine缓存内容的场景
+     *
+     * @param storeValue
+     * @return
+     */
+    static Object unwrap(Object storeValue) {
+        return storeValue instanceof StoreValueWrapper ? ((StoreValueWrapper) storeValue).getStoreValue()
+                : storeValue;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.layered;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+import pjq.springboot.constant.CacheConstants;
+
+/**
+ * Caffeine本地缓存(L1)+Redis缓存(L2)的两级缓存<br>
+ * 1.读取时先读L1，L1不存在再读L2，L2存在时回填L1<br>
+ * 2.写入和删除时同时操作两级缓存，并广播消息让其它实例删除L1中的对应缓存<br>
+ * 3.L1使用原始的key保存缓存(按equals/hashCode匹配)；失效消息中的key按{@link #toMessageKey(Object)}转换，
+ * String类型的key保持不变，其它类型的key转为带类名的json串，json相同的key收到消息时一起删除
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public class LayeredCache implements Cache {
+    private final String name;
+    private final Cache localCache;
+    private final Cache remoteCache;
+    private final LayeredCacheManager cacheManager;
+
+    /**
+     * L1中是否写入过非String类型的key，写入过时收到失效消息需要遍历L1查找对应的key
+     */
+    private volatile boolean nonStringKeyPut;
+
+    LayeredCache(String name, Cache localCache, Cache remoteCache, LayeredCacheManager cacheManager) {
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    /**
+     * 获取本地缓存(L1)，其中的key为原始的key
+     *
+     * @return
+     */
+    public Cache getLocalCache() {
+        return localCache;
+    }
+
+    /**
+     * 获取Redis缓存(L2)
+     *
+     * @return
+     */
+    public Cache getRemoteCache() {
+        return remoteCache;
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(Object key) {
+        ValueWrapper valueWrapper = localCache.get(key);
+        if (valueWrapper != null) {
+            return valueWrapper;
+        }
+
+        valueWrapper = remoteCache.get(key);
+        if (valueWrapper != null) {
+            putLocal(key, valueWrapper.get());
+        }
+        return valueWrapper;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, @Nullable Class<T> type) {
+        ValueWrapper valueWrapper = get(key);
+        Object value = valueWrapper != null ? valueWrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = localCache.get(key);
+        if (valueWrapper != null) {
+            return (T) valueWrapper.get();
+        }
+
+        //L2不存在时由L2加载并写入，L1只需要回填
+        T value = remoteCache.get(key, valueLoader);
+        putLocal(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        remoteCache.put(key, value);
+        putLocal(key, value);
+        cacheManager.publishEvict(name, toMessageKey(key));
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        ValueWrapper existingValue = remoteCache.putIfAbsent(key, value);
+        if (existingValue == null) {
+            putLocal(key, value);
+            cacheManager.publishEvict(name, toMessageKey(key));
+        } else {
+            putLocal(key, existingValue.get());
+        }
+        return existingValue;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        localCache.evict(key);
+        cacheManager.publishEvict(name, toMessageKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        localCache.clear();
+        cacheManager.publishEvict(name, null);
+    }
+
+    /**
+     * 收到其它实例的失效消息后，只删除本地缓存
+     *
+     * @param messageKey
+     *         {@link #toMessageKey(Object)}转换后的key，为空时清空整个本地缓存
+     */
+    @SuppressWarnings("unchecked")
+    void evictLocal(@Nullable String messageKey) {
+        if (messageKey == null) {
+            localCache.clear();
+            return;
+        }
+
+        localCache.evict(messageKey);
+        Object nativeCache = localCache.getNativeCache();
+        if (nonStringKeyPut && nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+            ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap().keySet()
+                    .removeIf(key -> !(key instanceof String) && messageKey.equals(toMessageKey(key)));
+        }
+    }
+
+    private void putLocal(Object key, @Nullable Object value) {
+        if (!(key instanceof String)) {
+            nonStringKeyPut = true;
+        }
+        localCache.put(key, value);
+    }
+
+    /**
+     * 获取key在失效消息中使用的key，各实例对同一key的转换结果一致<br>
+     * 不同的key可能转换为相同的结果(如没有getter的对象都转为"{}")，只会使收到消息的实例多删除一些缓存
+     *
+     * @param key
+     * @return
+     */
+    static String toMessageKey(Object key) {
+        if (key instanceof String) {
+            return (String) key;
+        }
+        return key.getClass().getName() + CacheConstants.DEFAULT_SEPARATOR
+                + JSON.toJSONString(key, SerializerFeature.MapSortField);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.layered;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import pjq.springboot.config.cache.CacheCustomProperties;
+import pjq.springboot.config.cache.caffeine.CacheValueWeigher;
+import pjq.springboot.config.cache.caffeine.HeapPressureCacheSizer;
+import pjq.springboot.config.cache.metrics.CacheMetrics;
+import pjq.springboot.config.cache.redis.CacheMessageSubscriber;
+import pjq.springboot.config.cache.redis.RedisCustomProperties;
+import pjq.springboot.constant.CacheConstants.CacheManagerNames;
+
+/**
+ * Caffeine本地缓存+Redis缓存的两级缓存配置<br>
+ * 1.L2使用根据cacheName动态配置的Redis cacheManager，L1的最大数量和最大失效时间通过pjq.redis.cache.layered-local-*配置<br>
+ * 2.通过{@link CacheMessageSubscriber}订阅其它实例广播的L1失效消息<br>
+ * 3.需要同时引入Caffeine和spring-data-redis，低版本spring-data-redis没有{@link BatchStrategies}类时不注册
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+@Configuration
+@ConditionalOnClass({ Caffeine.class, RedisCacheConfiguration.class, CacheManager.class, BatchStrategies.class })
+public class LayeredCacheConfig {
+    /**
+     * 两级缓存的manager<br>
+     * 1.需要@{@link Cacheable}等显式指定cacheManager={@link CacheManagerNames#LAYERED_CACHE_MANAGER}<br>
+     * 2.和动态配置的cacheManager一样，支持cacheName后面'#'号分隔的缓存配置及pjq.cache.specs配置
+     *
+     * @return
+     */
+    @Bean(CacheManagerNames.LAYERED_CACHE_MANAGER)
+    public CacheManager layeredCacheManager(
+            @Qualifier(CacheManagerNames.REDIS_CACHE_DYNAMIC_CONFIG_MANAGER) CacheManager dynamicConfigRedisCacheManager,
+            RedisConnectionFactory redisConnectionFactory, RedisCustomProperties redisCustomProperties,
+            CacheCustomProperties cacheCustomProperties, CacheValueWeigher cacheValueWeigher,
+            CacheMessageSubscriber cacheMessageSubscriber,
+            ObjectProvider<CacheMetrics> cacheMetricsProvider,
+            ObjectProvider<HeapPressureCacheSizer> heapPressureCacheSizerProvider) {
+        log.info("加载Caffeine+Redis的两级缓存管理器:{}", CacheManagerNames.LAYERED_CACHE_MANAGER);
+        RedisCustomProperties.Cache cacheProperties = redisCustomProperties.getCache();
+        LayeredCacheManager layeredCacheManager = new LayeredCacheManager(dynamicConfigRedisCacheManager,
+                redisConnectionFactory, cacheProperties.getLayeredLocalMaximumSize(),
+                cacheProperties.getLayeredLocalMaxTtl(), cacheCustomProperties, cacheValueWeigher,
+                cacheMetricsProvider.getIfAvailable(), heapPressureCacheSizerProvider.getIfAvailable());
+        cacheMessageSubscriber.subscribe(layeredCacheManager, new ChannelTopic(LayeredCacheManager.CHANNEL));
+        return layeredCacheManager;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.layered;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
+import com.alibaba.fastjson.JSON;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import pjq.springboot.config.cache.CacheCustomProperties;
+import pjq.springboot.config.cache.CacheNameSpec;
+import pjq.springboot.config.cache.caffeine.CacheValueWeigher;
+import pjq.springboot.config.cache.caffeine.HeapPressureCacheSizer;
+import pjq.springboot.config.cache.metrics.CacheMetrics;
+import pjq.springboot.config.cache.metrics.MicrometerStatsCounter;
+import pjq.springboot.constant.CacheConstants;
+import pjq.springboot.constant.CacheConstants.CacheManagerNames;
+
+/**
+ * Caffeine本地缓存(L1)+Redis缓存(L2)的两级缓存管理器<br>
+ * 1.L2直接使用根据cacheName动态配置的Redis cacheManager，即同样支持cacheName后面'#'号分隔的秒数<br>
+ * 2.L1的失效时间同样根据cacheName解析，但不超过配置的本地缓存最大失效时间，避免丢失失效消息时长时间读到旧数据；
+ * cacheName中配置了max时作为L1的最大缓存项数量，按字节数限制大小的规则和动态配置的Caffeine cacheManager一致<br>
+ * 3.写入和删除缓存时通过Redis的pub/sub广播失效消息，其它实例收到后删除L1中的对应缓存<br>
+ * 4.启用pjq.cache.metrics-enabled时记录L1的缓存指标<br>
+ * 5.启用pjq.cache.adaptive-sizing.enabled时根据堆内存压力调整L1的大小
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+public class LayeredCacheManager extends AbstractCacheManager implements MessageListener {
+    static final String CHANNEL = "pjq:cache:layered-evict";
+    private static final byte[] CHANNEL_BYTES = CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final CacheManager remoteCacheManager;
+    private final RedisConnectionFactory connectionFactory;
+    private final long localMaximumSize;
+    private final Duration localMaxTtl;
+    private final CacheCustomProperties cacheCustomProperties;
+    private final CacheValueWeigher cacheValueWeigher;
+    private final @Nullable CacheMetrics cacheMetrics;
+    private final @Nullable HeapPressureCacheSizer heapPressureCacheSizer;
+
+    /**
+     * @param cacheMetrics
+     *         为空时不记录本地缓存的指标；Redis缓存的指标由remoteCacheManager记录
+     * @param heapPressureCacheSizer
+     *         为空时不根据堆内存压力调整本地缓存大小
+     */
+    LayeredCacheManager(CacheManager remoteCacheManager, RedisConnectionFactory connectionFactory,
+            long localMaximumSize, Duration localMaxTtl, CacheCustomProperties cacheCustomProperties,
+            CacheValueWeigher cacheValueWeigher, @Nullable CacheMetrics cacheMetrics,
+            @Nullable HeapPressureCacheSizer heapPressureCacheSizer) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.connectionFactory = connectionFactory;
+        this.localMaximumSize = localMaximumSize;
+        this.localMaxTtl = localMaxTtl;
+        this.cacheCustomProperties = cacheCustomProperties;
+        this.cacheValueWeigher = cacheValueWeigher;
+        this.cacheMetrics = cacheMetrics;
+        this.heapPressureCacheSizer = heapPressureCacheSizer;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+
+        //根据cacheName后面的'#'号分隔的配置获取失效时间和最大数量，和动态配置的cacheManager一致
+        CacheNameSpec cacheNameSpec;
+        try {
+            cacheNameSpec = CacheNameSpec.parse(name, cacheCustomProperties.getSpecs());
+        } catch (Exception e) {
+            log.warn("解析缓存[{}]的配置异常，使用默认配置", name, e);
+            //不含'#'号的缓存名解析结果即为默认配置
+            int ttlIndex = name.indexOf(CacheNameSpec.TTL_SEPARATOR);
+            cacheNameSpec = CacheNameSpec.parse(ttlIndex < 0 ? name : name.substring(0, ttlIndex));
+        }
+        Duration localTtl = cacheNameSpec.getTtl() != null ? cacheNameSpec.getTtl() : CacheConstants.DEFAULT_EXPIRE;
+        if (localTtl.compareTo(localMaxTtl) > 0) {
+            localTtl = localMaxTtl;
+        }
+        Caffeine<Object, Object> localBuilder = Caffeine.newBuilder().expireAfterWrite(localTtl);
+        Long maximumWeight = getMaximumWeight(cacheNameSpec);
+        if (maximumWeight != null) {
+            localBuilder.maximumWeight(maximumWeight).weigher(cacheValueWeigher);
+        } else {
+            localBuilder.maximumSize(
+                    cacheNameSpec.getMaximumSize() != null ? cacheNameSpec.getMaximumSize() : localMaximumSize);
+        }
+        if (cacheMetrics != null) {
+            localBuilder.recordStats(
+                    () -> new MicrometerStatsCounter(cacheMetrics, CacheManagerNames.LAYERED_CACHE_MANAGER, name));
+        }
+        CaffeineCache localCache = new CaffeineCache(name, heapPressureCacheSizer != null
+                ? heapPressureCacheSizer.register(localBuilder.build()) : localBuilder.build(), true);
+        return new LayeredCache(name, localCache, remoteCache, this);
+    }
+
+    @Override
+    public void onMessage(Message message, @Nullable byte[] pattern) {
+        try {
+            LayeredCacheMessage cacheMessage = JSON.parseObject(new String(message.getBody(), StandardCharsets.UTF_8),
+                    LayeredCacheMessage.class);
+            if (cacheMessage == null || instanceId.equals(cacheMessage.getInstanceId())) {
+                return; //忽略自身发送的消息
+            }
+
+            //只处理本实例已创建的缓存
+            Cache cache = lookupCache(cacheMessage.getCacheName());
+            if (cache instanceof LayeredCache) {
+                ((LayeredCache) cache).evictLocal(cacheMessage.getKey());
+            }
+        } catch (Exception e) {
+            log.warn("处理两级缓存的失效消息异常", e);
+        }
+    }
+
+    /**
+     * 获取本地缓存的最大字节数，规则和动态配置的Caffeine cacheManager一致
+     *
+     * @param cacheNameSpec
+     * @return 为空时按缓存项数量限制
+     */
+    @Nullable
+    private Long getMaximumWeight(CacheNameSpec cacheNameSpec) {
+        if (cacheNameSpec.getMaximumWeight() != null) {
+            return cacheNameSpec.getMaximumWeight();
+        }
+
+        DataSize maximumWeight = cacheCustomProperties.getMaximumWeight();
+        if (maximumWeight == null || maximumWeight.toBytes() <= 0
+                || (!cacheNameSpec.isWeighBytes() && cacheNameSpec.getMaximumSize() != null)) {
+            return null;
+        }
+        return maximumWeight.toBytes();
+    }
+
+    /**
+     * 广播本地缓存失效消息
+     *
+     * @param name
+     * @param key
+     *         见{@link LayeredCache#toMessageKey(Object)}；为空时表示清空整个本地缓存
+     */
+    void publishEvict(String name, @Nullable String key) {
+        byte[] body = JSON.toJSONString(new LayeredCacheMessage(instanceId, name, key))
+                .getBytes(StandardCharsets.UTF_8);
+
+        RedisConnection connection = connectionFactory.getConnection();
+        try {
+            connection.publish(CHANNEL_BYTES, body);
+        } catch (Exception e) {
+            //广播失败不影响缓存本身的写入，其它实例的本地缓存最多在失效时间后更新
+            log.warn("广播两级缓存的失效消息异常", e);
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 单个缓存(及租户)的指标对象<br>
+ * 各计数器在创建时注册，记录时不再访问{@link MeterRegistry}；加载耗时的百分位直方图默认不发布
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public final class CacheMeters {
+    private static final Duration HISTOGRAM_MIN = Duration.ofMillis(1);
+    private static final Duration HISTOGRAM_MAX = Duration.ofSeconds(10);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter puts;
+    private final Counter deletes;
+    private final Timer lockWait;
+    private final Timer loadSuccess;
+    private final Timer loadFailure;
+
+    /**
+     * @param meterRegistry
+     * @param tags
+     * @param histogramEnabled
+     *         是否为加载耗时发布百分位直方图
+     */
+    CacheMeters(MeterRegistry meterRegistry, Tags tags, boolean histogramEnabled) {
+        hits = Counter.builder("pjq.cache.gets").tags(tags).tag("result", "hit").description("缓存命中的次数")
+                .register(meterRegistry);
+        misses = Counter.builder("pjq.cache.gets").tags(tags).tag("result", "miss").description("缓存未命中的次数")
+                .register(meterRegistry);
+        puts = Counter.builder("pjq.cache.puts").tags(tags).description("写入缓存的次数").register(meterRegistry);
+        deletes = Counter.builder("pjq.cache.deletes").tags(tags).description("删除缓存项的数量")
+                .register(meterRegistry);
+        lockWait = Timer.builder("pjq.cache.lock.wait").tags(tags).description("等待缓存锁释放的时间")
+                .register(meterRegistry);
+        loadSuccess = loadTimer(tags, "success", histogramEnabled).register(meterRegistry);
+        loadFailure = loadTimer(tags, "failure", histogramEnabled).register(meterRegistry);
+    }
+
+    public void incHits(long count) {
+        hits.increment(count);
+    }
+
+    public void incMisses(long count) {
+        misses.increment(count);
+    }
+
+    public void incPuts(long count) {
+        puts.increment(count);
+    }
+
+    public void incDeletes(long count) {
+        deletes.increment(count);
+    }
+
+    public void recordLockWait(long durationNanos) {
+        lockWait.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLoadSuccess(long durationNanos) {
+        loadSuccess.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordLoadFailure(long durationNanos) {
+        loadFailure.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer.Builder loadTimer(Tags tags, String result, boolean histogramEnabled) {
+        Timer.Builder builder = Timer.builder("pjq.cache.loads").tags(tags).tag("result", result)
+                .description("加载缓存值的耗时");
+        if (histogramEnabled) {
+            builder.publishPercentileHistogram().minimumExpectedValue(HISTOGRAM_MIN)
+                    .maximumExpectedValue(HISTOGRAM_MAX);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.metrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.lang.Nullable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import pjq.commons.utils.DefaultValueGetter;
+import pjq.springboot.config.cache.CacheKeyPrefixDecorator;
+import pjq.springboot.config.multitenant.MultiTenantInfoHolder;
+import pjq.springboot.constant.CacheConstants;
+
+/**
+ * 缓存指标记录器<br>
+ * 1.pjq.cache.metrics-enabled=true时注册，各cacheManager有该Bean时才记录指标<br>
+ * 2.指标带上cacheManager名称、cacheName及租户前缀的tag；启用多租户时租户前缀取当前线程的租户，否则为基础缓存key前缀<br>
+ * 3.每个缓存和租户的指标对象只注册一次，之后每次记录只需要查找Map和累加计数器<br>
+ * 4.加载耗时的百分位直方图只在启用pjq.cache.metrics-histogram-enabled时发布，避免时间序列随缓存和租户成倍增长
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public class CacheMetrics {
+    static final String TAG_MANAGER = "cacheManager";
+    static final String TAG_CACHE = "cache";
+    static final String TAG_TENANT = "tenant";
+
+    private final MeterRegistry meterRegistry;
+    private final @Nullable MultiTenantInfoHolder multiTenantInfoHolder;
+    private final String defaultTenantPrefix;
+    private final boolean histogramEnabled;
+    private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, CacheMeters>>> meters =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, Counter>>> evictions =
+            new ConcurrentHashMap<>();
+
+    /**
+     * @param meterRegistry
+     * @param cacheKeyPrefixDecorator
+     *         不是多租户模式时，用于获取固定的租户前缀
+     * @param multiTenantInfoHolder
+     *         为空表示不是多租户模式
+     * @param histogramEnabled
+     *         是否为加载耗时发布百分位直方图
+     */
+    public CacheMetrics(MeterRegistry meterRegistry, CacheKeyPrefixDecorator cacheKeyPrefixDecorator,
+            @Nullable MultiTenantInfoHolder multiTenantInfoHolder, boolean histogramEnabled) {
+        this.meterRegistry = meterRegistry;
+        this.multiTenantInfoHolder = multiTenantInfoHolder;
+        this.defaultTenantPrefix = trimSeparator(cacheKeyPrefixDecorator.getPrefix());
+        this.histogramEnabled = histogramEnabled;
+    }
+
+    /**
+     * 获取当前租户在指定缓存的指标对象
+     *
+     * @param managerName
+     * @param cacheName
+     * @return
+     */
+    public CacheMeters getMeters(String managerName, String cacheName) {
+        String tenantPrefix = currentTenantPrefix();
+        ConcurrentMap<String, CacheMeters> tenantMeters = meters.computeIfAbsent(managerName,
+                k -> new ConcurrentHashMap<>()).computeIfAbsent(cacheName, k -> new ConcurrentHashMap<>());
+        CacheMeters cacheMeters = tenantMeters.get(tenantPrefix);
+        if (cacheMeters == null) {
+            cacheMeters = tenantMeters.computeIfAbsent(tenantPrefix,
+                    k -> new CacheMeters(meterRegistry, Tags.of(TAG_MANAGER, managerName, TAG_CACHE, cacheName,
+                            TAG_TENANT, tenantPrefix), histogramEnabled));
+        }
+        return cacheMeters;
+    }
+
+    /**
+     * 记录缓存项被淘汰<br>
+     * 淘汰一般在缓存的维护线程中执行，无法确定租户，所以不带租户前缀的tag
+     *
+     * @param managerName
+     * @param cacheName
+     * @param cause
+     *         淘汰原因
+     * @param count
+     */
+    public void recordEviction(String managerName, String cacheName, String cause, long count) {
+        evictions.computeIfAbsent(managerName, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(cacheName, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(cause, k -> Counter.builder("pjq.cache.evictions").description("缓存项被淘汰的次数")
+                        .tags(TAG_MANAGER, managerName, TAG_CACHE, cacheName, "cause", cause)
+                        .register(meterRegistry))
+                .increment(count);
+    }
+
+    /**
+     * 包装缓存值加载方法，记录加载耗时
+     *
+     * @param managerName
+     * @param cacheName
+     * @param valueLoader
+     * @return
+     */
+    public <T> Callable<T> timed(String managerName, String cacheName, Callable<T> valueLoader) {
+        return () -> {
+            CacheMeters cacheMeters = getMeters(managerName, cacheName);
+            long startTime = System.nanoTime();
+            try {
+                T value = valueLoader.call();
+                cacheMeters.recordLoadSuccess(System.nanoTime() - startTime);
+                return value;
+            } catch (Exception e) {
+                cacheMeters.recordLoadFailure(System.nanoTime() - startTime);
+                throw e;
+            }
+        };
+    }
+
+    private String currentTenantPrefix() {
+        if (multiTenantInfoHolder == null) {
+            return defaultTenantPrefix;
+        }
+        return DefaultValueGetter.getValue(MultiTenantInfoHolder.UNKNOWN_TENANT_NAME,
+                multiTenantInfoHolder.getContextTenantName());
+    }
+
+    private static String trimSeparator(String prefix) {
+        return prefix.endsWith(CacheConstants.DEFAULT_SEPARATOR)
+                ? prefix.substring(0, prefix.length() - CacheConstants.DEFAULT_SEPARATOR.length())
+                : prefix;
+    }
+}
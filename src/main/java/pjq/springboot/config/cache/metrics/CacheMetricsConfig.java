@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+import pjq.springboot.config.cache.CacheCustomProperties;
+import pjq.springboot.config.cache.CacheKeyPrefixDecorator;
+import pjq.springboot.config.multitenant.MultiTenantInfoHolder;
+import pjq.springboot.constant.CacheConstants;
+
+/**
+ * 缓存指标配置<br>
+ * 默认不启用，需要配置pjq.cache.metrics-enabled=true
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnProperty(value = CacheConstants.CACHE_METRICS_ENABLED, havingValue = "true")
+public class CacheMetricsConfig {
+    @Bean
+    public CacheMetrics cacheMetrics(MeterRegistry meterRegistry, CacheKeyPrefixDecorator cacheKeyPrefixDecorator,
+            ObjectProvider<MultiTenantInfoHolder> multiTenantInfoHolderProvider,
+            CacheCustomProperties cacheCustomProperties) {
+        log.info("加载缓存指标记录器");
+        return new CacheMetrics(meterRegistry, cacheKeyPrefixDecorator, multiTenantInfoHolderProvider.getIfAvailable(),
+                cacheCustomProperties.isMetricsHistogramEnabled());
+    }
+}
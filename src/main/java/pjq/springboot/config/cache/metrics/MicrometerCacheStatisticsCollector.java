@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.metrics;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+
+/**
+ * 记录Micrometer指标的Redis缓存统计收集器<br>
+ * 同时保留spring-data-redis默认收集器的统计，{@link CacheStatistics}的获取和重置不受影响
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public class MicrometerCacheStatisticsCollector implements CacheStatisticsCollector {
+    private final CacheMetrics cacheMetrics;
+    private final String managerName;
+    private final CacheStatisticsCollector delegate = CacheStatisticsCollector.create();
+
+    public MicrometerCacheStatisticsCollector(CacheMetrics cacheMetrics, String managerName) {
+        this.cacheMetrics = cacheMetrics;
+        this.managerName = managerName;
+    }
+
+    @Override
+    public void incPuts(String cacheName) {
+        delegate.incPuts(cacheName);
+        cacheMetrics.getMeters(managerName, cacheName).incPuts(1);
+    }
+
+    @Override
+    public void incGets(String cacheName) {
+        //命中和未命中分别记录，读取次数为两者之和
+        delegate.incGets(cacheName);
+    }
+
+    @Override
+    public void incHits(String cacheName) {
+        delegate.incHits(cacheName);
+        cacheMetrics.getMeters(managerName, cacheName).incHits(1);
+    }
+
+    @Override
+    public void incMisses(String cacheName) {
+        delegate.incMisses(cacheName);
+        cacheMetrics.getMeters(managerName, cacheName).incMisses(1);
+    }
+
+    @Override
+    public void incDeletesBy(String cacheName, int value) {
+        delegate.incDeletesBy(cacheName, value);
+        cacheMetrics.getMeters(managerName, cacheName).incDeletes(value);
+    }
+
+    @Override
+    public void incLockTime(String cacheName, long durationNS) {
+        delegate.incLockTime(cacheName, durationNS);
+        cacheMetrics.getMeters(managerName, cacheName).recordLockWait(durationNS);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+
+    @Override
+    public void reset(String cacheName) {
+        delegate.reset(cacheName);
+    }
+}
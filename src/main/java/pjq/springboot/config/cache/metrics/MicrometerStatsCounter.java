@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.metrics;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+/**
+ * 记录Micrometer指标的Caffeine缓存统计计数器<br>
+ * 1.每个Caffeine缓存创建一个实例，通过{@code Caffeine.recordStats(Supplier)}设置<br>
+ * 2.同时保留Caffeine默认计数器的统计，{@code Cache.stats()}不受影响
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public class MicrometerStatsCounter implements StatsCounter {
+    private final CacheMetrics cacheMetrics;
+    private final String managerName;
+    private final String cacheName;
+    private final StatsCounter delegate = new ConcurrentStatsCounter();
+
+    public MicrometerStatsCounter(CacheMetrics cacheMetrics, String managerName, String cacheName) {
+        this.cacheMetrics = cacheMetrics;
+        this.managerName = managerName;
+        this.cacheName = cacheName;
+    }
+
+    @Override
+    public void recordHits(int count) {
+        delegate.recordHits(count);
+        cacheMetrics.getMeters(managerName, cacheName).incHits(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        delegate.recordMisses(count);
+        cacheMetrics.getMeters(managerName, cacheName).incMisses(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        delegate.recordLoadSuccess(loadTime);
+        cacheMetrics.getMeters(managerName, cacheName).recordLoadSuccess(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        delegate.recordLoadFailure(loadTime);
+        cacheMetrics.getMeters(managerName, cacheName).recordLoadFailure(loadTime);
+    }
+
+    /**
+     * 旧版本Caffeine的抽象方法，新版本中已删除，所以不加@Override
+     */
+    @Deprecated
+    public void recordEviction() {
+        recordEviction(1, RemovalCause.SIZE);
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        delegate.recordEviction(weight, cause);
+        cacheMetrics.recordEviction(managerName, cacheName, cause.name(), 1);
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return delegate.snapshot();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.reactive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import lombok.extern.slf4j.Slf4j;
+import pjq.springboot.assembly.annotation.condition.ConditionalOnSpringGatewayWebApplication;
+import pjq.springboot.config.cache.CacheCustomProperties;
+import pjq.springboot.config.cache.CacheKeyPrefixDecorator;
+import pjq.springboot.config.cache.redis.RedisCustomProperties;
+import reactor.core.publisher.Mono;
+
+/**
+ * 网关应用的缓存配置<br>
+ * 网关应用运行在Netty的事件循环线程上，不能使用阻塞的Redis cacheManager，所以提供非阻塞的{@link ReactiveLayeredCacheManager}，
+ * 例如网关过滤器中缓存鉴权、租户信息等查询结果
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+@Configuration
+@ConditionalOnSpringGatewayWebApplication
+@ConditionalOnClass({ ReactiveRedisTemplate.class, Mono.class })
+public class ReactiveCacheConfig {
+    /**
+     * 非阻塞的两级缓存管理器<br>
+     * 缓存值的序列化方式和defaultRedisCacheConfiguration一致，启用版本号模式时key的版本号和Redis缓存管理器一致
+     *
+     * @param reactiveRedisConnectionFactory
+     * @param defaultRedisCacheConfiguration
+     * @param cacheKeyPrefixDecorator
+     * @param cacheCustomProperties
+     * @param redisCustomProperties
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ReactiveLayeredCacheManager reactiveLayeredCacheManager(
+            ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+            RedisCacheConfiguration defaultRedisCacheConfiguration, CacheKeyPrefixDecorator cacheKeyPrefixDecorator,
+            CacheCustomProperties cacheCustomProperties, RedisCustomProperties redisCustomProperties) {
+        log.info("加载网关应用的非阻塞两级缓存管理器");
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(defaultRedisCacheConfiguration.getValueSerializationPair()).build();
+        RedisCustomProperties.Cache cacheProperties = redisCustomProperties.getCache();
+        return new ReactiveLayeredCacheManager(
+                new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, serializationContext),
+                cacheKeyPrefixDecorator, cacheCustomProperties, cacheProperties.getLayeredLocalMaximumSize(),
+                cacheProperties.getLayeredLocalMaxTtl(), cacheProperties.isVersionedNamespaceEnabled()
+                        ? cacheProperties.getGenerationRefreshInterval() : null);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.reactive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import pjq.springboot.config.cache.CacheKeyPrefixDecorator;
+import pjq.springboot.config.cache.TtlJitter;
+import pjq.springboot.constant.CacheConstants;
+import reactor.core.publisher.Mono;
+
+/**
+ * 网关应用使用的非阻塞两级缓存，Caffeine本地缓存(L1)+Redis缓存(L2)<br>
+ * 1.Redis的key为{@code 基础缓存key前缀 + 缓存名 + ':' + key}，和customKeyGenerator生成的key格式一致；
+ * 缓存名不含'#'号及后面的配置，key已经以前缀开头时不再添加<br>
+ * 2.缓存值的序列化方式和Redis缓存管理器一致，可以和非网关应用共用缓存<br>
+ * 3.本地缓存的失效时间不超过配置的本地缓存最大失效时间，其它实例修改缓存后最多在该时间后读到新值<br>
+ * 4.多租户模式下key的前缀在调用方法时获取，需要在设置了租户信息的线程中调用<br>
+ * 5.启用pjq.redis.cache.versioned-namespace-enabled时key带上和Redis缓存管理器一致的版本号{@code ':v' + 版本号}，
+ * 版本号按pjq.redis.cache.generation-refresh-interval的间隔从Redis重新获取，其它应用清理缓存后本缓存同样读不到旧值
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public class ReactiveLayeredCache {
+    private static final String GENERATION_PREFIX = "v";
+
+    private final String name;
+    private final String keyPrefix;
+    private final Cache<String, Object> localCache;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final CacheKeyPrefixDecorator cacheKeyPrefixDecorator;
+    private final Duration ttl;
+    private final @Nullable TtlJitter ttlJitter;
+
+    /**
+     * 版本号的刷新间隔，为空时不使用版本号
+     */
+    private final @Nullable Duration generationRefreshInterval;
+    private final ByteBuffer generationKey;
+    private volatile @Nullable Generation generation;
+
+    /**
+     * 正在加载的缓存，合并同一key的并发加载
+     */
+    private final ConcurrentMap<String, Mono<Object>> loadingValues = new ConcurrentHashMap<>();
+
+    ReactiveLayeredCache(String name, String baseName, Cache<String, Object> localCache,
+            ReactiveRedisTemplate<String, Object> redisTemplate, CacheKeyPrefixDecorator cacheKeyPrefixDecorator,
+            Duration ttl, @Nullable TtlJitter ttlJitter, @Nullable Duration generationRefreshInterval) {
+        this.name = name;
+        this.keyPrefix = baseName + CacheConstants.DEFAULT_SEPARATOR;
+        this.localCache = localCache;
+        this.redisTemplate = redisTemplate;
+        this.cacheKeyPrefixDecorator = cacheKeyPrefixDecorator;
+        this.ttl = ttl;
+        this.ttlJitter = ttlJitter;
+        this.generationRefreshInterval = generationRefreshInterval;
+        //和AccessableDefaultRedisCacheWriter保存版本号的key一致
+        this.generationKey = ByteBuffer.wrap((name + "~generation").getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取缓存值，先读本地缓存，没有时读Redis并保存到本地缓存
+     *
+     * @param key
+     * @param type
+     * @return 缓存不存在时为空的Mono
+     */
+    public <T> Mono<T> get(Object key, Class<T> type) {
+        return createCacheKey(key).flatMap(cacheKey -> getCacheKey(cacheKey, type));
+    }
+
+    /**
+     * 获取缓存值，缓存不存在时通过valueLoader加载并写入缓存<br>
+     * 同一实例中同一key的并发加载会合并为一次，valueLoader返回空的Mono时不写入缓存
+     *
+     * @param key
+     * @param type
+     * @param valueLoader
+     * @return
+     */
+    public <T> Mono<T> get(Object key, Class<T> type, Supplier<Mono<T>> valueLoader) {
+        return createCacheKey(key).flatMap(cacheKey -> getCacheKey(cacheKey, type).switchIfEmpty(Mono.defer(() -> {
+            Mono<Object> loading = loadingValues.computeIfAbsent(cacheKey,
+                    k -> valueLoader.get().cast(Object.class)
+                            .flatMap(value -> putCacheKey(cacheKey, value).thenReturn(value))
+                            .doFinally(signal -> loadingValues.remove(cacheKey)).cache());
+            return loading.flatMap(value -> castValue(value, type));
+        })));
+    }
+
+    /**
+     * 写入缓存，同时写入Redis和本地缓存
+     *
+     * @param key
+     * @param value
+     * @return
+     */
+    public Mono<Void> put(Object key, Object value) {
+        Assert.notNull(value, "Value must not be null!");
+        return createCacheKey(key).flatMap(cacheKey -> putCacheKey(cacheKey, value));
+    }
+
+    /**
+     * 删除缓存，同时删除Redis和本地缓存
+     *
+     * @param key
+     * @return Redis中存在该缓存时为true
+     */
+    public Mono<Boolean> evict(Object key) {
+        return createCacheKey(key).flatMap(cacheKey -> {
+            localCache.invalidate(cacheKey);
+            //删除Redis期间可能有并发读取把旧值写回本地缓存，删除后再删一次本地缓存
+            return redisTemplate.delete(cacheKey).map(count -> count > 0)
+                    .doFinally(signal -> localCache.invalidate(cacheKey));
+        });
+    }
+
+    private <T> Mono<T> getCacheKey(String cacheKey, Class<T> type) {
+        Object localValue = localCache.getIfPresent(cacheKey);
+        if (localValue != null) {
+            return castValue(localValue, type);
+        }
+
+        return redisTemplate.opsForValue().get(cacheKey).flatMap(value -> {
+            localCache.put(cacheKey, value);
+            return castValue(value, type);
+        });
+    }
+
+    private Mono<Void> putCacheKey(String cacheKey, Object value) {
+        Duration entryTtl = ttlJitter != null ? ttlJitter.apply(ttl) : ttl;
+        return redisTemplate.opsForValue().set(cacheKey, value, entryTtl)
+                .doOnSuccess(result -> localCache.put(cacheKey, value)).then();
+    }
+
+    /**
+     * 生成Redis的key<br>
+     * 前缀在调用时获取，版本号可能需要从Redis获取，所以返回Mono
+     *
+     * @param key
+     * @return
+     */
+    private Mono<String> createCacheKey(Object key) {
+        String keyString = String.valueOf(key);
+        String prefix = cacheKeyPrefixDecorator.getPrefix();
+        String cacheKey = keyString.startsWith(prefix) ? keyString
+                : new StringBuilder(prefix.length() + keyPrefix.length() + keyString.length()).append(prefix)
+                        .append(keyPrefix).append(keyString).toString();
+        if (generationRefreshInterval == null) {
+            return Mono.just(cacheKey);
+        }
+        return getGeneration().map(value -> cacheKey + CacheConstants.DEFAULT_SEPARATOR + GENERATION_PREFIX + value);
+    }
+
+    /**
+     * 获取缓存的当前版本号，超过刷新间隔后才重新从Redis获取
+     *
+     * @return
+     */
+    private Mono<Long> getGeneration() {
+        long now = System.currentTimeMillis();
+        Generation current = generation;
+        if (current != null && now - current.refreshTime < generationRefreshInterval.toMillis()) {
+            return Mono.just(current.value);
+        }
+        //并发刷新时可能会有多次从Redis获取，结果一致，不需要合并
+        return redisTemplate.execute(connection -> connection.stringCommands().get(generationKey.duplicate()))
+                .next().map(value -> Long.parseLong(StandardCharsets.UTF_8.decode(value).toString()))
+                .defaultIfEmpty(0L).doOnNext(value -> generation = new Generation(value, now));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Mono<T> castValue(Object value, Class<T> type) {
+        if (!type.isInstance(value)) {
+            return Mono.error(new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value));
+        }
+        return Mono.just((T) value);
+    }
+
+    private static class Generation {
+        private final long value;
+        private final long refreshTime;
+
+        Generation(long value, long refreshTime) {
+            this.value = value;
+            this.refreshTime = refreshTime;
+        }
+    }
+}
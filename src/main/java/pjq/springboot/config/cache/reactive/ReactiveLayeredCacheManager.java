@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.reactive;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.lang.Nullable;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import pjq.springboot.config.cache.CacheCustomProperties;
+import pjq.springboot.config.cache.CacheKeyPrefixDecorator;
+import pjq.springboot.config.cache.CacheNameSpec;
+import pjq.springboot.config.cache.TtlJitter;
+import pjq.springboot.constant.CacheConstants;
+
+/**
+ * 网关应用使用的非阻塞两级缓存管理器<br>
+ * 1.根据cacheName后面'#'号分隔的配置创建缓存，配置方式和根据cacheName动态配置的Redis cacheManager一致，也可以通过pjq.cache.specs配置<br>
+ * 2.支持失效时间和jitter配置项，max配置项作为本地缓存的最大缓存项数量<br>
+ * 3.本地缓存的最大数量和最大失效时间和两级缓存管理器共用pjq.redis.cache.layered-local-*配置<br>
+ * 4.版本号模式和Redis缓存管理器共用pjq.redis.cache.versioned-namespace-enabled配置
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public class ReactiveLayeredCacheManager {
+    private final ConcurrentMap<String, ReactiveLayeredCache> cacheMap = new ConcurrentHashMap<>();
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final CacheKeyPrefixDecorator cacheKeyPrefixDecorator;
+    private final CacheCustomProperties cacheCustomProperties;
+    private final long localMaximumSize;
+    private final Duration localMaxTtl;
+    private final @Nullable TtlJitter ttlJitter;
+    private final @Nullable Duration generationRefreshInterval;
+
+    ReactiveLayeredCacheManager(ReactiveRedisTemplate<String, Object> redisTemplate,
+            CacheKeyPrefixDecorator cacheKeyPrefixDecorator, CacheCustomProperties cacheCustomProperties,
+            long localMaximumSize, Duration localMaxTtl, @Nullable Duration generationRefreshInterval) {
+        this.redisTemplate = redisTemplate;
+        this.cacheKeyPrefixDecorator = cacheKeyPrefixDecorator;
+        this.cacheCustomProperties = cacheCustomProperties;
+        this.localMaximumSize = localMaximumSize;
+        this.localMaxTtl = localMaxTtl;
+        this.ttlJitter = TtlJitter.parse(cacheCustomProperties.getTtlJitter());
+        this.generationRefreshInterval = generationRefreshInterval;
+    }
+
+    /**
+     * 获取缓存，不存在时创建
+     *
+     * @param name
+     * @return
+     */
+    public ReactiveLayeredCache getCache(String name) {
+        ReactiveLayeredCache cache = cacheMap.get(name);
+        return cache != null ? cache : cacheMap.computeIfAbsent(name, this::createCache);
+    }
+
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(cacheMap.keySet());
+    }
+
+    private ReactiveLayeredCache createCache(String name) {
+        CacheNameSpec cacheNameSpec = CacheNameSpec.parse(name, cacheCustomProperties.getSpecs());
+        Duration ttl = cacheNameSpec.getTtl() != null ? cacheNameSpec.getTtl() : CacheConstants.DEFAULT_EXPIRE;
+        Duration localTtl = ttl.compareTo(localMaxTtl) > 0 ? localMaxTtl : ttl;
+        long maximumSize = cacheNameSpec.getMaximumSize() != null ? cacheNameSpec.getMaximumSize() : localMaximumSize;
+
+        TtlJitter cacheTtlJitter = cacheNameSpec.getTtlJitter() != null ? cacheNameSpec.getTtlJitter() : ttlJitter;
+
+        int ttlIndex = name.indexOf(CacheNameSpec.TTL_SEPARATOR);
+        String baseName = ttlIndex < 0 ? name : name.substring(0, ttlIndex);
+        return new ReactiveLayeredCache(name, baseName,
+                Caffeine.newBuilder().expireAfterWrite(localTtl).maximumSize(maximumSize).build(), redisTemplate,
+                cacheKeyPrefixDecorator, ttl, cacheTtlJitter, generationRefreshInterval);
+    }
+}
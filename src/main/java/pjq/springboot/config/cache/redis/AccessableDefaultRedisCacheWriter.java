@@ -33,9 +33,15 @@ package pjq.springboot.config.cache.redis;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.redis.cache.BatchStrategy;
@@ -45,9 +51,13 @@ import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import io.lettuce.core.ScriptOutputType;
+
+import pjq.springboot.config.cache.TtlJitter;
 
 /**
  * {@link org.springframework.data.redis.cache.DefaultRedisCacheWriter}的构造器不可访问，所以直接复制代码并用于{@link RedisCacheConfig}
@@ -57,10 +67,61 @@ import org.springframework.util.Assert;
  */
 class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 
+	/**
+	 * 只有锁的值和当前持有者一致时才删除锁，删除后发送锁释放通知
+	 */
+	private static final CacheWriterScript UNLOCK_SCRIPT = new CacheWriterScript(
+			"if redis.call('get', KEYS[1]) == ARGV[1] then "
+			+ "redis.call('del', KEYS[1]) "
+			+ "if ARGV[2] ~= '' then redis.call('publish', ARGV[2], ARGV[3]) end "
+			+ "return 1 end return 0");
+
+	/**
+	 * 缓存被锁定时返回{-1}；写入成功时返回{1}；key已存在时返回{0, 已有的值}<br>
+	 * KEYS[2]为缓存锁的key，不需要检查锁时不传
+	 */
+	private static final CacheWriterScript PUT_IF_ABSENT_SCRIPT = new CacheWriterScript(
+			"if #KEYS > 1 and redis.call('exists', KEYS[2]) == 1 then return {-1} end "
+			+ "local put "
+			+ "if ARGV[2] ~= '0' then put = redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2], 'NX') "
+			+ "else put = redis.call('set', KEYS[1], ARGV[1], 'NX') end "
+			+ "if put then return {1} end "
+			+ "return {0, redis.call('get', KEYS[1])}");
+
+	/**
+	 * 缓存被锁定时返回-1，否则返回删除的数量<br>
+	 * KEYS[2]为缓存锁的key，不需要检查锁时不传
+	 */
+	private static final CacheWriterScript REMOVE_SCRIPT = new CacheWriterScript(
+			"if #KEYS > 1 and redis.call('exists', KEYS[2]) == 1 then return -1 end "
+			+ "return redis.call('del', KEYS[1])");
+
+	/**
+	 * 加载耗时和失效时间的分隔符
+	 */
+	private static final String COMPUTE_TIME_SEPARATOR = ",";
+
 	private final RedisConnectionFactory connectionFactory;
 	private final Duration sleepTime;
+	private final Duration lockTtl;
+	private final @Nullable CacheLockNotifier lockNotifier;
 	private final CacheStatisticsCollector statistics;
 	private final BatchStrategy batchStrategy;
+	private final @Nullable TtlJitter ttlJitter;
+	private final @Nullable RedisNearCache nearCache;
+	private final boolean scripted;
+	private final @Nullable RedisSharedCacheConnection sharedConnection;
+	private final @Nullable RedisHotKeyDetector hotKeyDetector;
+
+	/**
+	 * 单独配置了失效时间抖动的缓存
+	 */
+	private final ConcurrentMap<String, TtlJitter> cacheTtlJitters = new ConcurrentHashMap<>();
+
+	/**
+	 * 当前实例的锁持有者标识，加上线程ID后作为锁的值
+	 */
+	private final String lockOwnerId = UUID.randomUUID().toString();
 
 	/**
 	 * @param connectionFactory must not be {@literal null}.
@@ -89,16 +150,47 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 	 */
 	AccessableDefaultRedisCacheWriter(RedisConnectionFactory connectionFactory, Duration sleepTime,
 			CacheStatisticsCollector cacheStatisticsCollector, BatchStrategy batchStrategy) {
+		this(connectionFactory, sleepTime, Duration.ZERO, null, cacheStatisticsCollector, batchStrategy, null, null,
+				false, null, null);
+	}
+
+	/**
+	 * @param connectionFactory must not be {@literal null}.
+	 * @param sleepTime sleep time between lock request attempts. Must not be {@literal null}. Use {@link Duration#ZERO}
+	 *          to disable locking.
+	 * @param lockTtl 缓存锁的失效时间，{@link Duration#ZERO}表示不设置失效时间. Must not be {@literal null}.
+	 * @param lockNotifier 不为空时使用锁释放通知的方式等待锁，为空时使用轮询方式
+	 * @param cacheStatisticsCollector must not be {@literal null}.
+	 * @param batchStrategy must not be {@literal null}.
+	 * @param ttlJitter 默认的失效时间抖动，为空时不抖动
+	 * @param nearCache 不为空时读取缓存优先使用近端缓存，写入和删除缓存时同时删除近端缓存
+	 * @param scripted 为true时putIfAbsent、remove均以一次Lua脚本执行，缓存未锁定时只需一次网络往返
+	 * @param sharedConnection 不为空且可用时，不需要检查锁的普通命令在共用连接上执行，不再每次获取和归还连接
+	 * @param hotKeyDetector 不为空时统计读取的热点key，热点key的值在本地保存很短的时间
+	 */
+	AccessableDefaultRedisCacheWriter(RedisConnectionFactory connectionFactory, Duration sleepTime, Duration lockTtl,
+			@Nullable CacheLockNotifier lockNotifier, CacheStatisticsCollector cacheStatisticsCollector,
+			BatchStrategy batchStrategy, @Nullable TtlJitter ttlJitter, @Nullable RedisNearCache nearCache,
+			boolean scripted, @Nullable RedisSharedCacheConnection sharedConnection,
+			@Nullable RedisHotKeyDetector hotKeyDetector) {
 
 		Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
 		Assert.notNull(sleepTime, "SleepTime must not be null!");
+		Assert.notNull(lockTtl, "LockTtl must not be null!");
 		Assert.notNull(cacheStatisticsCollector, "CacheStatisticsCollector must not be null!");
 		Assert.notNull(batchStrategy, "BatchStrategy must not be null!");
 
 		this.connectionFactory = connectionFactory;
 		this.sleepTime = sleepTime;
+		this.lockTtl = lockTtl;
+		this.lockNotifier = lockNotifier;
 		this.statistics = cacheStatisticsCollector;
 		this.batchStrategy = batchStrategy;
+		this.ttlJitter = ttlJitter;
+		this.nearCache = nearCache;
+		this.scripted = scripted;
+		this.sharedConnection = sharedConnection != null && sharedConnection.isAvailable() ? sharedConnection : null;
+		this.hotKeyDetector = hotKeyDetector;
 	}
 
 	/*
@@ -112,16 +204,22 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 		Assert.notNull(key, "Key must not be null!");
 		Assert.notNull(value, "Value must not be null!");
 
-		execute(name, connection -> {
+		Duration entryTtl = applyTtlJitter(name, ttl);
+		executeShared(name, shared -> {
 
-			if (shouldExpireWithin(ttl)) {
-				connection.set(key, value, Expiration.from(ttl.toMillis(), TimeUnit.MILLISECONDS), SetOption.upsert());
+			shared.set(key, value, shouldExpireWithin(entryTtl) ? entryTtl : null);
+			return "OK";
+		}, connection -> {
+
+			if (shouldExpireWithin(entryTtl)) {
+				connection.set(key, value, Expiration.from(entryTtl.toMillis(), TimeUnit.MILLISECONDS), SetOption.upsert());
 			} else {
 				connection.set(key, value);
 			}
 
 			return "OK";
 		});
+		evictLocal(name, key);
 
 		statistics.incPuts(name);
 	}
@@ -136,7 +234,22 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 		Assert.notNull(name, "Name must not be null!");
 		Assert.notNull(key, "Key must not be null!");
 
-		byte[] result = execute(name, connection -> connection.get(key));
+		byte[] result = nearCache != null ? nearCache.get(key) : null;
+		if (result == null && hotKeyDetector != null) {
+			result = hotKeyDetector.getLocal(name, key);
+		}
+		if (result == null) {
+
+			long nearCacheSequence = nearCache != null ? nearCache.sequence() : 0;
+			long hotKeySequence = hotKeyDetector != null ? hotKeyDetector.sequence(name) : 0;
+			result = executeShared(name, shared -> shared.get(key), connection -> connection.get(key));
+			if (result != null && nearCache != null) {
+				nearCache.put(key, result, nearCacheSequence);
+			}
+			if (result != null && hotKeyDetector != null) {
+				hotKeyDetector.putLocal(name, key, result, hotKeySequence);
+			}
+		}
 
 		statistics.incGets(name);
 
@@ -149,6 +262,173 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 		return result;
 	}
 
+	/**
+	 * 批量获取缓存值，使用MGET在一次网络往返中获取所有key的值
+	 *
+	 * @param name
+	 * @param keys
+	 * @return 和keys顺序一致的值列表，不存在的key对应位置为null
+	 */
+	public List<byte[]> getAll(String name, List<byte[]> keys) {
+
+		Assert.notNull(name, "Name must not be null!");
+		Assert.notNull(keys, "Keys must not be null!");
+
+		if (keys.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		byte[][] keyArray = keys.toArray(new byte[keys.size()][]);
+		List<byte[]> result = executeShared(name, shared -> shared.mGet(keyArray),
+				connection -> connection.mGet(keyArray));
+		if (result == null) {
+			result = Collections.nCopies(keys.size(), null);
+		}
+
+		for (byte[] value : result) {
+
+			statistics.incGets(name);
+
+			if (value != null) {
+				statistics.incHits(name);
+			} else {
+				statistics.incMisses(name);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * 批量写入缓存值<br>
+	 * 有失效时间时，在同一连接上以pipeline方式批量执行SET PX(每个key单独计算失效时间抖动)；没有失效时间时直接使用MSET
+	 *
+	 * @param name
+	 * @param entries
+	 * @param ttl
+	 */
+	public void putAll(String name, Map<byte[], byte[]> entries, @Nullable Duration ttl) {
+
+		Assert.notNull(name, "Name must not be null!");
+		Assert.notNull(entries, "Entries must not be null!");
+
+		if (entries.isEmpty()) {
+			return;
+		}
+
+		execute(name, connection -> {
+
+			if (shouldExpireWithin(ttl)) {
+
+				connection.openPipeline();
+				try {
+					entries.forEach((key, value) -> connection.set(key, value,
+							Expiration.from(applyTtlJitter(name, ttl).toMillis(), TimeUnit.MILLISECONDS),
+							SetOption.upsert()));
+				} finally {
+					connection.closePipeline();
+				}
+			} else {
+				connection.mSet(entries);
+			}
+
+			return "OK";
+		});
+		entries.keySet().forEach(key -> evictLocal(name, key));
+
+		for (int i = 0; i < entries.size(); i++) {
+			statistics.incPuts(name);
+		}
+	}
+
+	/**
+	 * 获取缓存值，同时获取剩余失效时间、加载耗时和写入时使用的失效时间<br>
+	 * 使用pipeline在一次网络往返中执行，用于提前刷新缓存的判断
+	 *
+	 * @param name
+	 * @param key
+	 * @param computeTimeKey 保存加载耗时的key
+	 * @return
+	 */
+	ValueWithExpiry getWithExpiry(String name, byte[] key, byte[] computeTimeKey) {
+
+		Assert.notNull(name, "Name must not be null!");
+		Assert.notNull(key, "Key must not be null!");
+		Assert.notNull(computeTimeKey, "ComputeTimeKey must not be null!");
+
+		List<Object> results = execute(name, connection -> {
+
+			connection.openPipeline();
+			connection.get(key);
+			connection.pTtl(key);
+			connection.get(computeTimeKey);
+			return connection.closePipeline();
+		});
+
+		byte[] value = (byte[]) results.get(0);
+		Long remainingTtlMillis = (Long) results.get(1);
+		byte[] computeTime = (byte[]) results.get(2);
+
+		statistics.incGets(name);
+
+		if (value != null) {
+			statistics.incHits(name);
+		} else {
+			statistics.incMisses(name);
+		}
+
+		//值为"加载耗时,写入时使用的失效时间"，只有加载耗时的是旧格式
+		long computeTimeMillis = 0;
+		long entryTtlMillis = 0;
+		if (computeTime != null) {
+			String[] parts = new String(computeTime, StandardCharsets.UTF_8).split(COMPUTE_TIME_SEPARATOR);
+			computeTimeMillis = Long.parseLong(parts[0]);
+			entryTtlMillis = parts.length > 1 ? Long.parseLong(parts[1]) : 0;
+		}
+		return new ValueWithExpiry(value, remainingTtlMillis != null ? remainingTtlMillis : -1, computeTimeMillis,
+				entryTtlMillis);
+	}
+
+	/**
+	 * 写入缓存值，同时写入加载耗时和增加抖动后实际使用的失效时间<br>
+	 * 两个key使用相同的失效时间，并使用pipeline在一次网络往返中执行
+	 *
+	 * @param name
+	 * @param key
+	 * @param value
+	 * @param computeTimeKey 保存加载耗时的key
+	 * @param computeTimeMillis
+	 * @param ttl
+	 */
+	void putWithComputeTime(String name, byte[] key, byte[] value, byte[] computeTimeKey, long computeTimeMillis,
+			@Nullable Duration ttl) {
+
+		if (!shouldExpireWithin(ttl)) {
+			put(name, key, value, ttl); //没有失效时间时不需要提前刷新，也不需要保存加载耗时
+			return;
+		}
+
+		long entryTtlMillis = applyTtlJitter(name, ttl).toMillis();
+		Expiration expiration = Expiration.from(entryTtlMillis, TimeUnit.MILLISECONDS);
+		byte[] computeTime = (computeTimeMillis + COMPUTE_TIME_SEPARATOR + entryTtlMillis)
+				.getBytes(StandardCharsets.UTF_8);
+		execute(name, connection -> {
+
+			connection.openPipeline();
+			try {
+				connection.set(key, value, expiration, SetOption.upsert());
+				connection.set(computeTimeKey, computeTime, expiration, SetOption.upsert());
+			} finally {
+				connection.closePipeline();
+			}
+
+			return "OK";
+		});
+		evictLocal(name, key);
+
+		statistics.incPuts(name);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.springframework.data.redis.cache.RedisCacheWriter#putIfAbsent(java.lang.String, byte[], byte[], java.time.Duration)
@@ -160,7 +440,21 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 		Assert.notNull(key, "Key must not be null!");
 		Assert.notNull(value, "Value must not be null!");
 
-		return execute(name, connection -> {
+		Duration entryTtl = applyTtlJitter(name, ttl);
+		if (scripted) {
+			return scriptedPutIfAbsent(name, key, value, entryTtl);
+		}
+
+		return executeShared(name, shared -> {
+
+			if (shared.setIfAbsent(key, value, shouldExpireWithin(entryTtl) ? entryTtl : null)) {
+				evictLocal(name, key);
+				statistics.incPuts(name);
+				return null;
+			}
+
+			return shared.get(key);
+		}, connection -> {
 
 			if (isLockingCacheWriter()) {
 				doLock(name, connection);
@@ -170,13 +464,14 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 
 				boolean put;
 
-				if (shouldExpireWithin(ttl)) {
-					put = connection.set(key, value, Expiration.from(ttl), SetOption.ifAbsent());
+				if (shouldExpireWithin(entryTtl)) {
+					put = connection.set(key, value, Expiration.from(entryTtl), SetOption.ifAbsent());
 				} else {
 					put = connection.setNX(key, value);
 				}
 
 				if (put) {
+					evictLocal(name, key);
 					statistics.incPuts(name);
 					return null;
 				}
@@ -201,10 +496,46 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 		Assert.notNull(name, "Name must not be null!");
 		Assert.notNull(key, "Key must not be null!");
 
-		execute(name, connection -> connection.del(key));
+		if (scripted) {
+			byte[][] keys = isLockingCacheWriter() ? new byte[][] { key, createCacheLockKey(name) } : new byte[][] { key };
+			executeScripted(name,
+					shared -> shared.execute(commands -> REMOVE_SCRIPT.<Long> execute(commands, ScriptOutputType.INTEGER, keys)),
+					connection -> REMOVE_SCRIPT.<Long> execute(connection, ReturnType.INTEGER, keys.length, keys),
+					AccessableDefaultRedisCacheWriter::isLockedResult);
+		} else {
+			executeShared(name, shared -> shared.del(key), connection -> connection.del(key));
+		}
+		evictLocal(name, key);
 		statistics.incDeletes(name);
 	}
 
+	/**
+	 * 以一次Lua脚本执行putIfAbsent，脚本本身是原子的，所以不需要加锁
+	 */
+	@Nullable
+	private byte[] scriptedPutIfAbsent(String name, byte[] key, byte[] value, @Nullable Duration ttl) {
+
+		byte[][] keys = isLockingCacheWriter() ? new byte[][] { key, createCacheLockKey(name) } : new byte[][] { key };
+		byte[][] args = new byte[][] { value, toBytes(shouldExpireWithin(ttl) ? ttl.toMillis() : 0L) };
+		byte[][] keysAndArgs = new byte[keys.length + args.length][];
+		System.arraycopy(keys, 0, keysAndArgs, 0, keys.length);
+		System.arraycopy(args, 0, keysAndArgs, keys.length, args.length);
+
+		List<Object> result = executeScripted(name,
+				shared -> shared.execute(commands -> PUT_IF_ABSENT_SCRIPT.<List<Object>> execute(commands,
+						ScriptOutputType.MULTI, keys, args)),
+				connection -> PUT_IF_ABSENT_SCRIPT.execute(connection, ReturnType.MULTI, keys.length, keysAndArgs),
+				scriptResult -> isLockedResult((Long) scriptResult.get(0)));
+
+		if ((Long) result.get(0) == 1L) {
+			evictLocal(name, key);
+			statistics.incPuts(name);
+			return null;
+		}
+
+		return result.size() > 1 ? (byte[]) result.get(1) : null;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.springframework.data.redis.cache.RedisCacheWriter#clean(java.lang.String, byte[])
@@ -226,12 +557,13 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 					wasLocked = true;
 				}
 
-				long deleteCount = batchStrategy.cleanCache(connection, name, pattern);
-				while (deleteCount > Integer.MAX_VALUE) {
-					statistics.incDeletesBy(name, Integer.MAX_VALUE);
-					deleteCount -= Integer.MAX_VALUE;
+				if (batchStrategy instanceof ScanBatchStrategy) {
+					//每批删除后即更新统计信息，清理过程中可通过删除数量查看进度
+					((ScanBatchStrategy) batchStrategy).cleanCache(connection, name, pattern,
+							batchDeleteCount -> incDeletesBy(name, batchDeleteCount));
+				} else {
+					incDeletesBy(name, batchStrategy.cleanCache(connection, name, pattern));
 				}
-				statistics.incDeletesBy(name, (int) deleteCount);
 
 			} finally {
 
@@ -242,6 +574,8 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 
 			return "OK";
 		});
+
+		clearLocal(name, pattern);
 	}
 
 	/*
@@ -268,7 +602,119 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 	 */
 	@Override
 	public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
-		return new AccessableDefaultRedisCacheWriter(connectionFactory, sleepTime, cacheStatisticsCollector, this.batchStrategy);
+		AccessableDefaultRedisCacheWriter cacheWriter = new AccessableDefaultRedisCacheWriter(connectionFactory,
+				sleepTime, lockTtl, lockNotifier, cacheStatisticsCollector, this.batchStrategy, ttlJitter, nearCache,
+				scripted, sharedConnection, hotKeyDetector);
+		cacheWriter.cacheTtlJitters.putAll(cacheTtlJitters);
+		return cacheWriter;
+	}
+
+	private void evictLocal(String name, byte[] key) {
+
+		if (nearCache != null) {
+			nearCache.evict(key);
+		}
+		if (hotKeyDetector != null) {
+			hotKeyDetector.evict(name, key);
+		}
+	}
+
+	private void clearLocal(String name, byte[] pattern) {
+
+		//只删除该缓存的本地缓存，不影响其它缓存
+		if (nearCache != null) {
+			nearCache.clear(pattern);
+		}
+		if (hotKeyDetector != null) {
+			hotKeyDetector.clear(name);
+		}
+	}
+
+	private void incDeletesBy(String name, long deleteCount) {
+
+		while (deleteCount > Integer.MAX_VALUE) {
+			statistics.incDeletesBy(name, Integer.MAX_VALUE);
+			deleteCount -= Integer.MAX_VALUE;
+		}
+		statistics.incDeletesBy(name, (int) deleteCount);
+	}
+
+	/**
+	 * 为缓存单独配置失效时间抖动
+	 *
+	 * @param name
+	 * @param cacheTtlJitter
+	 */
+	void registerTtlJitter(String name, TtlJitter cacheTtlJitter) {
+		cacheTtlJitters.put(name, cacheTtlJitter);
+	}
+
+	/**
+	 * 对失效时间增加随机抖动，优先使用缓存单独配置的抖动
+	 *
+	 * @param name
+	 * @param ttl
+	 * @return
+	 */
+	@Nullable
+	private Duration applyTtlJitter(String name, @Nullable Duration ttl) {
+
+		if (!shouldExpireWithin(ttl)) {
+			return ttl;
+		}
+
+		TtlJitter jitter = cacheTtlJitters.getOrDefault(name, ttlJitter);
+		return jitter != null ? jitter.apply(ttl) : ttl;
+	}
+
+	/**
+	 * 获取缓存的版本号
+	 *
+	 * @param name
+	 * @return 缓存还没有版本号时返回0
+	 */
+	long getGeneration(String name) {
+
+		byte[] value = execute(name, connection -> connection.get(createCacheGenerationKey(name)));
+		return value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0L;
+	}
+
+	/**
+	 * 递增缓存的版本号
+	 *
+	 * @param name
+	 * @return 递增后的版本号
+	 */
+	long incrementGeneration(String name) {
+
+		Long value = execute(name, connection -> connection.incr(createCacheGenerationKey(name)));
+		return value != null ? value : 0L;
+	}
+
+	/**
+	 * 获取加载租约，不检查缓存锁
+	 *
+	 * @param leaseKey
+	 * @param token 租约持有者标识，释放时只删除值和该标识一致的租约
+	 * @param ttl
+	 * @return 是否获取成功
+	 */
+	boolean acquireLease(byte[] leaseKey, byte[] token, Duration ttl) {
+
+		return Boolean.TRUE.equals(executeLockFree(connection -> shouldExpireWithin(ttl)
+				? connection.set(leaseKey, token, Expiration.from(ttl), SetOption.ifAbsent())
+				: connection.setNX(leaseKey, token)));
+	}
+
+	/**
+	 * 释放加载租约，租约已失效并被其它持有者获取时不删除
+	 *
+	 * @param leaseKey
+	 * @param token
+	 */
+	void releaseLease(byte[] leaseKey, byte[] token) {
+		executeLockFree(connection -> UNLOCK_SCRIPT.<Long> execute(connection, ReturnType.INTEGER, 1, leaseKey, token,
+				new byte[0], new byte[0]));
 	}
 
 	/**
@@ -290,11 +736,21 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 	}
 
 	private Boolean doLock(String name, RedisConnection connection) {
-		return connection.setNX(createCacheLockKey(name), new byte[0]);
+
+		//锁的值为持有者标识，并设置失效时间，避免持有者异常退出后锁一直存在
+		if (shouldExpireWithin(lockTtl)) {
+			return connection.set(createCacheLockKey(name), createLockValue(), Expiration.from(lockTtl),
+					SetOption.ifAbsent());
+		}
+		return connection.setNX(createCacheLockKey(name), createLockValue());
 	}
 
 	private Long doUnlock(String name, RedisConnection connection) {
-		return connection.del(createCacheLockKey(name));
+
+		//只释放自己持有的锁，通知方式下同时发送锁释放通知
+		byte[] channel = lockNotifier != null ? CacheLockNotifier.CHANNEL_BYTES : new byte[0];
+		return UNLOCK_SCRIPT.execute(connection, ReturnType.INTEGER, 1, createCacheLockKey(name), createLockValue(),
+				channel, name.getBytes(StandardCharsets.UTF_8));
 	}
 
 	boolean doCheckLock(String name, RedisConnection connection) {
@@ -311,21 +767,79 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 	private <T> T execute(String name, Function<RedisConnection, T> callback) {
 
 		RedisConnection connection = connectionFactory.getConnection();
+		if (lockNotifier != null) {
+			//等待锁期间可能会更换连接，等待失败时连接已在方法内关闭
+			connection = waitUntilUnlockedByNotification(name, connection);
+		}
+
 		try {
 
-			checkAndPotentiallyWaitUntilUnlocked(name, connection);
+			if (lockNotifier == null) {
+				checkAndPotentiallyWaitUntilUnlocked(name, connection);
+			}
 			return callback.apply(connection);
 		} finally {
 			connection.close();
 		}
 	}
 
-	private void executeLockFree(Consumer<RedisConnection> callback) {
+	/**
+	 * 执行检查锁的脚本<br>
+	 * 先不等待锁直接执行，脚本返回缓存被锁定时再按原方式等待锁释放后重试，缓存未锁定时只需一次网络往返
+	 *
+	 * @param name
+	 * @param sharedCallback 在共用连接上执行脚本
+	 * @param callback
+	 * @param locked 判断脚本的返回值是否表示缓存被锁定
+	 * @return
+	 */
+	private <T> T executeScripted(String name, Function<RedisSharedCacheConnection, T> sharedCallback,
+			Function<RedisConnection, T> callback, Predicate<T> locked) {
+
+		T result;
+
+		if (sharedConnection != null) {
+			result = sharedCallback.apply(sharedConnection);
+		} else {
+
+			RedisConnection connection = connectionFactory.getConnection();
+
+			try {
+				result = callback.apply(connection);
+			} finally {
+				connection.close();
+			}
+		}
+
+		while (locked.test(result)) {
+			result = execute(name, callback);
+		}
+		return result;
+	}
+
+	/**
+	 * 不需要检查锁且共用连接可用时，在共用连接上执行命令，否则按原方式获取连接执行
+	 *
+	 * @param name
+	 * @param sharedCallback 只能执行不阻塞、不使用事务和pipeline的命令
+	 * @param callback
+	 * @return
+	 */
+	private <T> T executeShared(String name, Function<RedisSharedCacheConnection, T> sharedCallback,
+			Function<RedisConnection, T> callback) {
+
+		if (sharedConnection == null || isLockingCacheWriter()) {
+			return execute(name, callback);
+		}
+		return sharedCallback.apply(sharedConnection);
+	}
+
+	private <T> T executeLockFree(Function<RedisConnection, T> callback) {
 
 		RedisConnection connection = connectionFactory.getConnection();
 
 		try {
-			callback.accept(connection);
+			return callback.apply(connection);
 		} finally {
 			connection.close();
 		}
@@ -355,6 +869,78 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 		}
 	}
 
+	/**
+	 * 通知方式等待缓存锁释放<br>
+	 * 1.锁存在时先归还连接，再挂起线程直到收到锁释放通知、锁自动失效或等待超时<br>
+	 * 2.被唤醒后重新获取连接并再次检查锁
+	 *
+	 * @param name
+	 * @param connection
+	 * @return 锁已释放后可继续使用的连接；抛出异常时连接已关闭
+	 */
+	private RedisConnection waitUntilUnlockedByNotification(String name, RedisConnection connection) {
+
+		if (!isLockingCacheWriter()) {
+			return connection;
+		}
+
+		long lockWaitTimeNs = System.nanoTime();
+		long deadline = System.currentTimeMillis() + lockNotifier.getWaitTimeout().toMillis();
+		RedisConnection currentConnection = connection;
+		boolean unlocked = false;
+		try {
+
+			while (true) {
+
+				//先记录通知版本号再检查锁，避免检查锁之后、挂起之前的通知丢失
+				long version = lockNotifier.currentVersion(name);
+				Long lockTtlMillis = currentConnection.pTtl(createCacheLockKey(name));
+				if (lockTtlMillis == null || lockTtlMillis == -2) {
+					unlocked = true;
+					return currentConnection;
+				}
+
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					throw new PessimisticLockingFailureException(
+							String.format("Timed out waiting to unlock cache %s", name));
+				}
+
+				//等待期间不占用连接；锁有失效时间时，最多等待到锁失效
+				currentConnection.close();
+				currentConnection = null;
+				long awaitMillis = lockTtlMillis > 0 ? Math.min(remaining, lockTtlMillis) : remaining;
+				lockNotifier.awaitRelease(name, version, awaitMillis);
+				currentConnection = connectionFactory.getConnection();
+			}
+		} catch (InterruptedException ex) {
+
+			// Re-interrupt current thread, to allow other participants to react.
+			Thread.currentThread().interrupt();
+
+			throw new PessimisticLockingFailureException(String.format("Interrupted while waiting to unlock cache %s", name),
+					ex);
+		} finally {
+
+			if (!unlocked && currentConnection != null) {
+				currentConnection.close();
+			}
+			statistics.incLockTime(name, System.nanoTime() - lockWaitTimeNs);
+		}
+	}
+
+	private byte[] createLockValue() {
+		return (lockOwnerId + ":" + Thread.currentThread().getId()).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static boolean isLockedResult(@Nullable Long scriptResult) {
+		return scriptResult != null && scriptResult < 0;
+	}
+
+	private static byte[] toBytes(long value) {
+		return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+	}
+
 	private static boolean shouldExpireWithin(@Nullable Duration ttl) {
 		return ttl != null && !ttl.isZero() && !ttl.isNegative();
 	}
@@ -362,4 +948,52 @@ class AccessableDefaultRedisCacheWriter implements RedisCacheWriter {
 	private static byte[] createCacheLockKey(String name) {
 		return (name + "~lock").getBytes(StandardCharsets.UTF_8);
 	}
-}
+
+	private static byte[] createCacheGenerationKey(String name) {
+		return (name + "~generation").getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 缓存值及其剩余失效时间、加载耗时和写入时使用的失效时间
+	 */
+	static class ValueWithExpiry {
+		private final @Nullable byte[] value;
+		private final long remainingTtlMillis;
+		private final long computeTimeMillis;
+		private final long entryTtlMillis;
+
+		ValueWithExpiry(@Nullable byte[] value, long remainingTtlMillis, long computeTimeMillis,
+				long entryTtlMillis) {
+			this.value = value;
+			this.remainingTtlMillis = remainingTtlMillis;
+			this.computeTimeMillis = computeTimeMillis;
+			this.entryTtlMillis = entryTtlMillis;
+		}
+
+		@Nullable
+		byte[] getValue() {
+			return value;
+		}
+
+		/**
+		 * @return 剩余失效时间(毫秒)，小于0表示key不存在或没有失效时间
+		 */
+		long getRemainingTtlMillis() {
+			return remainingTtlMillis;
+		}
+
+		/**
+		 * @return 加载耗时(毫秒)，0表示没有记录
+		 */
+		long getComputeTimeMillis() {
+			return computeTimeMillis;
+		}
+
+		/**
+		 * @return 写入时增加抖动后实际使用的失效时间(毫秒)，0表示没有记录
+		 */
+		long getEntryTtlMillis() {
+			return entryTtlMillis;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 缓存版本号持有器<br>
+ * 1.版本号保存在Redis中，每个缓存一个计数器，清理整个缓存时只需要对计数器执行一次INCR<br>
+ * 2.缓存key中带上版本号，版本号变化后旧版本的key不会再被访问，依赖失效时间自动删除<br>
+ * 3.本地缓存各缓存的版本号，超过刷新间隔后才重新从Redis获取，避免每次读写缓存都多一次网络往返
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+class CacheGenerationHolder {
+    private final AccessableDefaultRedisCacheWriter cacheWriter;
+    private final long refreshIntervalMillis;
+    private final ConcurrentMap<String, Generation> generations = new ConcurrentHashMap<>();
+
+    CacheGenerationHolder(AccessableDefaultRedisCacheWriter cacheWriter, Duration refreshInterval) {
+        this.cacheWriter = cacheWriter;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+    }
+
+    /**
+     * 获取缓存的当前版本号
+     *
+     * @param name
+     * @return
+     */
+    long get(String name) {
+        long now = System.currentTimeMillis();
+        Generation generation = generations.get(name);
+        if (generation == null || now - generation.refreshTime >= refreshIntervalMillis) {
+            //并发刷新时可能会有多个线程同时从Redis获取，结果一致，不需要加锁
+            generation = new Generation(cacheWriter.getGeneration(name), now);
+            generations.put(name, generation);
+        }
+        return generation.value;
+    }
+
+    /**
+     * 递增缓存的版本号，即清理整个缓存
+     *
+     * @param name
+     * @return 递增后的版本号
+     */
+    long increment(String name) {
+        long value = cacheWriter.incrementGeneration(name);
+        generations.put(name, new Generation(value, System.currentTimeMillis()));
+        return value;
+    }
+
+    private static class Generation {
+        private final long value;
+        private final long refreshTime;
+
+        Generation(long value, long refreshTime) {
+            this.value = value;
+            this.refreshTime = refreshTime;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.lang.Nullable;
+
+/**
+ * 缓存锁释放的通知器<br>
+ * 1.{@link AccessableDefaultRedisCacheWriter}释放缓存锁时向{@link #CHANNEL}发送缓存名<br>
+ * 2.等待锁的线程不再轮询Redis，而是挂起直到收到对应缓存名的通知或等待超时
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+class CacheLockNotifier implements MessageListener {
+    static final String CHANNEL = "pjq:cache:lock-released";
+    static final byte[] CHANNEL_BYTES = CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    private final Duration waitTimeout;
+    private final ConcurrentMap<String, Signal> signals = new ConcurrentHashMap<>();
+
+    CacheLockNotifier(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    Duration getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    @Override
+    public void onMessage(Message message, @Nullable byte[] pattern) {
+        Signal signal = signals.get(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (signal != null) {
+            signal.fire();
+        }
+    }
+
+    /**
+     * 获取缓存锁释放通知的当前版本号<br>
+     * 需要在检查锁之前获取，避免检查锁和挂起线程之间收到的通知丢失
+     *
+     * @param name
+     * @return
+     */
+    long currentVersion(String name) {
+        return signals.computeIfAbsent(name, key -> new Signal()).version;
+    }
+
+    /**
+     * 挂起当前线程，直到版本号发生变化(即收到锁释放通知)或超时
+     *
+     * @param name
+     * @param version
+     *         {@link #currentVersion(String)}获取的版本号
+     * @param timeoutMillis
+     * @return 是否收到了通知
+     * @throws InterruptedException
+     */
+    boolean awaitRelease(String name, long version, long timeoutMillis) throws InterruptedException {
+        return signals.computeIfAbsent(name, key -> new Signal()).await(version, timeoutMillis);
+    }
+
+    private static class Signal {
+        private volatile long version;
+
+        synchronized void fire() {
+            version++;
+            notifyAll();
+        }
+
+        synchronized boolean await(long expectedVersion, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            long remaining = timeoutMillis;
+            while (version == expectedVersion && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return version != expectedVersion;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+
+/**
+ * 缓存相关功能订阅Redis消息的入口<br>
+ * 1.用于缓存锁释放通知、两级缓存失效消息等需要订阅Redis消息的功能<br>
+ * 2.内部的{@link RedisMessageListenerContainer}在第一次订阅时才创建，没有功能需要订阅时不创建；
+ * 该容器不注册为Bean，避免和应用自身的容器在按类型注入时冲突
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+public class CacheMessageSubscriber implements SmartLifecycle, DisposableBean {
+    private final RedisConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer container;
+    private boolean running;
+
+    CacheMessageSubscriber(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * 订阅消息，已启动时立即生效
+     *
+     * @param listener
+     * @param topic
+     */
+    public synchronized void subscribe(MessageListener listener, Topic topic) {
+        if (container == null) {
+            container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            container.afterPropertiesSet();
+            if (running) {
+                container.start();
+            }
+        }
+        container.addMessageListener(listener, topic);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        if (container != null) {
+            container.start();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (container != null) {
+            container.destroy();
+            container = null;
+        }
+    }
+}
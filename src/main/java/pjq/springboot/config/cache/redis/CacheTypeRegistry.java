@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 缓存值类型的编号注册表<br>
+ * 1.编号由类名的摘要计算得到，同一类名在所有实例中的编号一致，不同类名不会复用同一编号；
+ * 注册表被清理(如清空缓存、Redis淘汰key)后重新注册得到的仍是原来的编号，不会把缓存值解析为其它类型<br>
+ * 2.编号到类名的对应关系保存在Redis中，用于读取其它实例写入的缓存值；本地缓存已获取过的对应关系，
+ * 写入方每隔{@link #REGISTER_INTERVAL_MILLIS}重新注册一次，注册表被清理后其它实例最多在该间隔内无法识别该编号<br>
+ * 3.编号以'0'开头，和类名及旧版本由Redis递增生成的编号区分；旧编号仍按注册表读取，注册表被清理后按缓存不存在处理<br>
+ * 4.访问Redis失败或摘要冲突时直接使用类名作为类型标识，读取时不以数字开头的类型标识按类名处理
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+class CacheTypeRegistry {
+    private static final byte[] NAMES_KEY = "pjq:cache:type-registry:names".getBytes(StandardCharsets.UTF_8);
+    private static final String TYPE_ID_PREFIX = "0";
+    private static final long REGISTER_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final ConcurrentMap<String, Registration> registrationsByClassName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> classNamesByTypeId = new ConcurrentHashMap<>();
+
+    CacheTypeRegistry(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * 获取类名对应的类型标识
+     *
+     * @param className
+     * @return 编号；注册失败时返回类名本身
+     */
+    String toTypeId(String className) {
+        long now = System.currentTimeMillis();
+        Registration registration = registrationsByClassName.get(className);
+        //摘要冲突时使用类名，不需要重新注册
+        if (registration != null && (now - registration.registerTime < REGISTER_INTERVAL_MILLIS
+                || registration.typeId.equals(className))) {
+            return registration.typeId;
+        }
+
+        String typeId = registration != null ? registration.typeId : createTypeId(className);
+        try {
+            if (!register(typeId, className)) {
+                log.warn("缓存值类型[{}]的编号[{}]已被其它类型使用，使用类名作为类型标识", className, typeId);
+                typeId = className;
+            }
+        } catch (Exception e) {
+            log.warn("注册缓存值类型[{}]的编号异常，使用类名作为类型标识", className, e);
+            return className;
+        }
+        //并发注册时可能会有多个线程同时访问Redis，结果一致，不需要加锁
+        registrationsByClassName.put(className, new Registration(typeId, now));
+        if (!typeId.equals(className)) {
+            classNamesByTypeId.put(typeId, className);
+        }
+        return typeId;
+    }
+
+    /**
+     * 获取类型标识对应的类名
+     *
+     * @param typeId
+     * @return 类名；编号没有注册时返回null
+     */
+    @Nullable
+    String toClassName(String typeId) {
+        if (!isRegisteredTypeId(typeId)) {
+            return typeId;
+        }
+
+        String className = classNamesByTypeId.get(typeId);
+        if (className != null) {
+            return className;
+        }
+
+        RedisConnection connection = connectionFactory.getConnection();
+        try {
+            byte[] value = connection.hGet(NAMES_KEY, typeId.getBytes(StandardCharsets.UTF_8));
+            if (value == null) {
+                return null;
+            }
+            className = new String(value, StandardCharsets.UTF_8);
+        } finally {
+            connection.close();
+        }
+        //摘要编号由类名计算得到，本地缓存后不会失效；旧版本的递增编号可能在注册表被清理后复用，不缓存
+        if (typeId.startsWith(TYPE_ID_PREFIX)) {
+            classNamesByTypeId.put(typeId, className);
+        }
+        return className;
+    }
+
+    /**
+     * 写入编号到类名的对应关系
+     *
+     * @param typeId
+     * @param className
+     * @return 编号没有被其它类名使用时返回true
+     */
+    private boolean register(String typeId, String className) {
+        byte[] typeIdBytes = typeId.getBytes(StandardCharsets.UTF_8);
+        byte[] classNameBytes = className.getBytes(StandardCharsets.UTF_8);
+        RedisConnection connection = connectionFactory.getConnection();
+        try {
+            if (Boolean.TRUE.equals(connection.hSetNX(NAMES_KEY, typeIdBytes, classNameBytes))) {
+                return true;
+            }
+            byte[] existingClassName = connection.hGet(NAMES_KEY, typeIdBytes);
+            return existingClassName == null || className.equals(new String(existingClassName, StandardCharsets.UTF_8));
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * 取类名MD5摘要的前64位，按36进制编码
+     *
+     * @param className
+     * @return
+     */
+    private static String createTypeId(String className) {
+        byte[] digest = DigestUtils.md5Digest(className.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash << Byte.SIZE) | (digest[i] & 0xff);
+        }
+        return TYPE_ID_PREFIX + Long.toUnsignedString(hash, Character.MAX_RADIX);
+    }
+
+    private static boolean isRegisteredTypeId(String typeId) {
+        //类名不会以数字开头
+        return !typeId.isEmpty() && Character.isDigit(typeId.charAt(0));
+    }
+
+    private static class Registration {
+        private final String typeId;
+        private final long registerTime;
+
+        Registration(String typeId, long registerTime) {
+            this.typeId = typeId;
+            this.registerTime = registerTime;
+        }
+    }
+}
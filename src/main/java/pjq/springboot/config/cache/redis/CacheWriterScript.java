@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.RedisScript;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.sync.RedisCommands;
+
+/**
+ * 缓存writer使用的Lua脚本<br>
+ * 优先通过EVALSHA执行已缓存的脚本，Redis返回NOSCRIPT(首次执行或脚本缓存被清空)时改用EVAL执行，EVAL执行后Redis会缓存该脚本
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+final class CacheWriterScript {
+    private static final String NO_SCRIPT_ERROR = "NOSCRIPT";
+
+    private final byte[] script;
+    private final String sha1;
+
+    CacheWriterScript(String script) {
+        this.script = script.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = RedisScript.of(script).getSha1();
+    }
+
+    /**
+     * 执行脚本
+     *
+     * @param connection
+     * @param returnType
+     * @param numKeys
+     * @param keysAndArgs
+     * @return
+     */
+    <T> T execute(RedisConnection connection, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+        try {
+            return connection.evalSha(sha1, returnType, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!isNoScriptError(e)) {
+                throw e;
+            }
+            return connection.eval(script, returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    /**
+     * 在Lettuce原生连接上执行脚本
+     *
+     * @param commands
+     * @param outputType
+     * @param keys
+     * @param args
+     * @return
+     */
+    <T> T execute(RedisCommands<byte[], byte[]> commands, ScriptOutputType outputType, byte[][] keys,
+            byte[]... args) {
+        try {
+            return commands.evalsha(sha1, outputType, keys, args);
+        } catch (RuntimeException e) {
+            if (!isNoScriptError(e)) {
+                throw e;
+            }
+            return commands.eval(script, outputType, keys, args);
+        }
+    }
+
+    private static boolean isNoScriptError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains(NO_SCRIPT_ERROR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 紧凑格式的Redis缓存值序列化器<br>
+ * 1.和{@link RedisCacheConfig#jsonSerializer4Redis}一样对非final类型带上类型信息，但类型信息使用{@link CacheTypeRegistry}中的短编号代替完整类名<br>
+ * 2.序列化结果以{@link #FORMAT_HEADER}开头，没有该标识的值(即切换前写入的值)使用原Jackson序列化器读取，两种格式可以混合存在<br>
+ * 3.读取时遇到无法识别的类型编号，按缓存不存在处理
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+class CompactRedisSerializer implements RedisSerializer<Object> {
+    /**
+     * 格式标识，JSON文本不会以该字节开头
+     */
+    static final byte FORMAT_HEADER = 0x01;
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+    private static final String TYPE_PROPERTY = "@t";
+
+    private final ObjectMapper objectMapper;
+    private final RedisSerializer<Object> legacySerializer;
+
+    /**
+     * @param objectMapper
+     *         不需要调用activateDefaultTyping，会在这里设置使用类型编号的默认类型信息
+     * @param typeValidator
+     * @param typeRegistry
+     * @param legacySerializer
+     *         读取旧格式缓存值使用的序列化器
+     */
+    CompactRedisSerializer(ObjectMapper objectMapper, PolymorphicTypeValidator typeValidator,
+            CacheTypeRegistry typeRegistry, RedisSerializer<Object> legacySerializer) {
+        this.objectMapper = objectMapper.setDefaultTyping(
+                new RegistryTypeResolverBuilder(typeValidator, typeRegistry).init(JsonTypeInfo.Id.CLASS, null)
+                        .inclusion(JsonTypeInfo.As.WRAPPER_ARRAY).typeProperty(TYPE_PROPERTY));
+        this.legacySerializer = legacySerializer;
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY_ARRAY;
+        }
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            byte[] result = new byte[json.length + 1];
+            result[0] = FORMAT_HEADER;
+            System.arraycopy(json, 0, result, 1, json.length);
+            return result;
+        } catch (IOException e) {
+            throw new SerializationException("Could not write JSON: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_HEADER) {
+            return legacySerializer.deserialize(bytes);
+        }
+
+        try {
+            return objectMapper.readValue(bytes, 1, bytes.length - 1, Object.class);
+        } catch (InvalidTypeIdException e) {
+            log.debug("缓存值的类型编号无法识别，按缓存不存在处理", e);
+            return null;
+        } catch (IOException e) {
+            throw new SerializationException("Could not read JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 和activateDefaultTyping(NON_FINAL)一致，只是类型标识改为使用类型编号
+     */
+    private static class RegistryTypeResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+        private static final long serialVersionUID = 1L;
+
+        private final transient CacheTypeRegistry typeRegistry;
+
+        RegistryTypeResolverBuilder(PolymorphicTypeValidator typeValidator, CacheTypeRegistry typeRegistry) {
+            super(ObjectMapper.DefaultTyping.NON_FINAL, typeValidator);
+            this.typeRegistry = typeRegistry;
+        }
+
+        @Override
+        protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType,
+                PolymorphicTypeValidator subtypeValidator, Collection<NamedType> subtypes, boolean forSer,
+                boolean forDeser) {
+            return new RegistryTypeIdResolver(baseType, config.getTypeFactory(), subtypeValidator, typeRegistry);
+        }
+    }
+
+    /**
+     * 在类名类型标识的基础上，把类名和类型编号互相转换
+     */
+    private static class RegistryTypeIdResolver extends ClassNameIdResolver {
+        private final CacheTypeRegistry typeRegistry;
+
+        RegistryTypeIdResolver(JavaType baseType, TypeFactory typeFactory, PolymorphicTypeValidator typeValidator,
+                CacheTypeRegistry typeRegistry) {
+            super(baseType, typeFactory, typeValidator);
+            this.typeRegistry = typeRegistry;
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            return typeRegistry.toTypeId(super.idFromValue(value));
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> type) {
+            return typeRegistry.toTypeId(super.idFromValueAndType(value, type));
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+            String className = typeRegistry.toClassName(id);
+            return className != null ? super.typeFromId(context, className) : null;
+        }
+
+        @Override
+        public JsonTypeInfo.Id getMechanism() {
+            return JsonTypeInfo.Id.CUSTOM;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 按大小阈值压缩缓存值的序列化器<br>
+ * 1.包装原有的序列化器，序列化结果超过阈值时使用JDK自带的Deflater压缩，并以{@link #FORMAT_HEADER}开头<br>
+ * 2.未超过阈值或压缩后没有变小的值原样保存，和不启用压缩时写入的值完全一致，未升级的实例也可以读取；
+ * 压缩后的值只有升级后的实例可以读取，未升级的实例使用原Jackson序列化器读取时会抛出异常，
+ * 滚动发布期间新旧实例共存时，应在所有实例升级完成后再启用压缩<br>
+ * 3.读取时只有以{@link #FORMAT_HEADER}开头的值需要解压，新旧格式可以混合存在<br>
+ * 4.有{@link MeterRegistry}时记录压缩前后的字节数、压缩率和压缩/解压耗时
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+class CompressingRedisSerializer implements RedisSerializer<Object> {
+    /**
+     * 压缩格式标识，JSON文本和{@link CompactRedisSerializer#FORMAT_HEADER}都不会以该字节开头
+     */
+    static final byte FORMAT_HEADER = 0x02;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final RedisSerializer<Object> delegate;
+    private final int threshold;
+    private final int level;
+
+    @Nullable
+    private final Counter originalBytes;
+    @Nullable
+    private final Counter compressedBytes;
+    @Nullable
+    private final Counter skipped;
+    @Nullable
+    private final DistributionSummary ratio;
+    @Nullable
+    private final Timer compressTime;
+    @Nullable
+    private final Timer decompressTime;
+
+    /**
+     * @param delegate
+     *         实际执行序列化的序列化器
+     * @param threshold
+     *         超过该字节数时才压缩
+     * @param level
+     *         Deflater的压缩级别
+     * @param meterRegistry
+     *         为null时不记录指标
+     */
+    CompressingRedisSerializer(RedisSerializer<Object> delegate, int threshold, int level,
+            @Nullable MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.level = level;
+        if (meterRegistry != null) {
+            originalBytes = Counter.builder("pjq.cache.compression.bytes").tag("stage", "original")
+                    .description("压缩前的字节数").register(meterRegistry);
+            compressedBytes = Counter.builder("pjq.cache.compression.bytes").tag("stage", "compressed")
+                    .description("压缩后的字节数").register(meterRegistry);
+            skipped = Counter.builder("pjq.cache.compression.skipped").description("超过阈值但压缩后没有变小的次数")
+                    .register(meterRegistry);
+            ratio = DistributionSummary.builder("pjq.cache.compression.ratio").description("压缩后和压缩前的字节数比例")
+                    .register(meterRegistry);
+            compressTime = Timer.builder("pjq.cache.compression.time").tag("operation", "compress")
+                    .register(meterRegistry);
+            decompressTime = Timer.builder("pjq.cache.compression.time").tag("operation", "decompress")
+                    .register(meterRegistry);
+        } else {
+            originalBytes = null;
+            compressedBytes = null;
+            skipped = null;
+            ratio = null;
+            compressTime = null;
+            decompressTime = null;
+        }
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+        if (bytes == null || bytes.length <= threshold) {
+            return bytes;
+        }
+
+        long startTime = System.nanoTime();
+        byte[] compressed = compress(bytes);
+        if (compressTime != null) {
+            compressTime.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+
+        if (compressed.length >= bytes.length) {
+            if (skipped != null) {
+                skipped.increment();
+            }
+            return bytes;
+        }
+        if (originalBytes != null) {
+            originalBytes.increment(bytes.length);
+            compressedBytes.increment(compressed.length);
+            ratio.record((double) compressed.length / bytes.length);
+        }
+        return compressed;
+    }
+
+    @Override
+    @Nullable
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != FORMAT_HEADER) {
+            return delegate.deserialize(bytes);
+        }
+
+        long startTime = System.nanoTime();
+        byte[] decompressed = decompress(bytes);
+        if (decompressTime != null) {
+            decompressTime.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+        return delegate.deserialize(decompressed);
+    }
+
+    private byte[] compress(byte[] bytes) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+            out.write(FORMAT_HEADER);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] decompress(byte[] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("Could not decompress cache value: data is truncated");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationException("Could not decompress cache value: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
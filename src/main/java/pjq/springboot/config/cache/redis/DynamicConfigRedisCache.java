@@ -0,0 +1,370 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import lombok.extern.slf4j.Slf4j;
+
+import pjq.springboot.constant.CacheConstants;
+
+/**
+ * {@link RedisCacheConfig#dynamicConfigRedisCacheManager}创建的缓存对象<br>
+ * 1.在{@link RedisCache}的基础上增加批量读写的方法，使用时把获取到的cache对象强转为本类即可<br>
+ * 2.启用版本号模式时，缓存key会带上缓存的版本号，清理整个缓存时只递增版本号<br>
+ * 3.{@code @Cacheable(sync = true)}时，同一key并发未命中只会执行一次方法，其它线程等待该次结果；
+ * 可选启用分布式模式，通过Redis租约保证多个实例间也只有一个实例执行方法；等待超过pjq.redis.cache.single-flight-wait-timeout时自行执行方法<br>
+ * 4.启用提前刷新时，{@code @Cacheable(sync = true)}读取快要失效的缓存会按XFetch算法的概率触发异步刷新，调用方仍然获取当前的缓存值；
+ * 配置了写入后刷新时间的，读取写入时长超过该时间的缓存同样触发异步刷新(写入时长根据写入时实际使用的失效时间和剩余时间计算)<br>
+ * 注意异步刷新在后台线程中执行方法，方法中不能依赖请求线程的上下文(例如登录用户、事务等)；
+ * 多租户模式下通过{@link pjq.springboot.config.multitenant.MultiTenantInfoHolder#getContextTaskDecorator()}传递租户上下文
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+public class DynamicConfigRedisCache extends RedisCache {
+    private static final String GENERATION_PREFIX = "v";
+    private static final String LEASE_SUFFIX = "~lease";
+    private static final long LEASE_POLL_INTERVAL_MILLIS = 50;
+    private static final String COMPUTE_TIME_SUFFIX = "~computeTime";
+
+    private final AccessableDefaultRedisCacheWriter cacheWriter;
+    private final RedisCustomProperties.Cache cacheProperties;
+    private final @Nullable CacheGenerationHolder generationHolder;
+    private final @Nullable Executor refreshAheadExecutor;
+    private final @Nullable Duration refreshAfterWrite;
+
+    /**
+     * 本实例正在加载的缓存key
+     */
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+
+    /**
+     * 本实例正在提前刷新的缓存key
+     */
+    private final ConcurrentMap<String, Boolean> refreshingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param refreshAheadExecutor
+     *         为空时不启用提前刷新
+     * @param refreshAfterWrite
+     *         写入后多久刷新，为空时只按XFetch算法判断
+     */
+    DynamicConfigRedisCache(String name, AccessableDefaultRedisCacheWriter cacheWriter,
+            RedisCacheConfiguration cacheConfig, RedisCustomProperties.Cache cacheProperties,
+            @Nullable CacheGenerationHolder generationHolder, @Nullable Executor refreshAheadExecutor,
+            @Nullable Duration refreshAfterWrite) {
+        super(name, cacheWriter, cacheConfig);
+        this.cacheWriter = cacheWriter;
+        this.cacheProperties = cacheProperties;
+        this.generationHolder = generationHolder;
+        this.refreshAheadExecutor = refreshAheadExecutor;
+        this.refreshAfterWrite = refreshAfterWrite;
+    }
+
+    /**
+     * 合并同一key的并发加载<br>
+     * {@link RedisCache}的该方法对整个缓存加了synchronized，不同key之间也会互相阻塞；这里改为只对同一key合并
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper result = refreshAheadExecutor != null ? getAndRefreshAhead(key, valueLoader) : get(key);
+        if (result != null) {
+            return (T) result.get();
+        }
+
+        String cacheKey = createCacheKey(key);
+        CompletableFuture<Object> loadFuture = new CompletableFuture<>();
+        CompletableFuture<Object> inFlightLoad = inFlightLoads.putIfAbsent(cacheKey, loadFuture);
+        if (inFlightLoad != null) {
+            return (T) awaitInFlightLoad(key, valueLoader, inFlightLoad);
+        }
+
+        try {
+            Object value = cacheProperties.isSingleFlightDistributedEnabled()
+                    ? loadWithLease(key, cacheKey, valueLoader)
+                    : loadAndPut(key, valueLoader);
+            loadFuture.complete(value);
+            return (T) value;
+        } catch (Throwable e) {
+            loadFuture.completeExceptionally(e);
+            throw e;
+        } finally {
+            //Error等未捕获到的情况下也要结束等待中的线程
+            if (!loadFuture.isDone()) {
+                loadFuture.completeExceptionally(new IllegalStateException("缓存加载未正常结束"));
+            }
+            inFlightLoads.remove(cacheKey, loadFuture);
+        }
+    }
+
+    /**
+     * 版本号模式下，清理整个缓存只需要递增版本号，旧版本的key依赖失效时间自动删除
+     */
+    @Override
+    public void clear() {
+        if (generationHolder != null) {
+            generationHolder.increment(getName());
+            return;
+        }
+        super.clear();
+    }
+
+    @Override
+    protected String createCacheKey(Object key) {
+        String cacheKey = super.createCacheKey(key);
+        if (generationHolder == null) {
+            return cacheKey;
+        }
+        return cacheKey + CacheConstants.DEFAULT_SEPARATOR + GENERATION_PREFIX + generationHolder.get(getName());
+    }
+
+    /**
+     * 批量获取缓存<br>
+     * 所有key只需要一次网络往返，适合一次请求需要读取大量缓存的场景
+     *
+     * @param keys
+     * @return 只包含命中的key，value为对应的缓存值
+     */
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        Assert.notNull(keys, "Keys must not be null!");
+        if (keys.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        List<Object> keyList = new ArrayList<>(keys);
+        List<byte[]> cacheKeys = new ArrayList<>(keyList.size());
+        for (Object key : keyList) {
+            cacheKeys.add(serializeCacheKey(createCacheKey(key)));
+        }
+
+        List<byte[]> values = cacheWriter.getAll(getName(), cacheKeys);
+        Map<Object, ValueWrapper> result = new LinkedHashMap<>();
+        for (int i = 0, size = keyList.size(); i < size; i++) {
+            byte[] value = values.get(i);
+            if (value != null) {
+                result.put(keyList.get(i), new SimpleValueWrapper(fromStoreValue(deserializeCacheValue(value))));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量写入缓存<br>
+     * 所有key只需要一次网络往返，失效时间和{@link #put(Object, Object)}一致
+     *
+     * @param entries
+     */
+    public void putAll(Map<?, ?> entries) {
+        Assert.notNull(entries, "Entries must not be null!");
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<byte[], byte[]> cacheEntries = new LinkedHashMap<>();
+        entries.forEach((key, value) -> cacheEntries.put(serializeCacheKey(createCacheKey(key)), toCacheValue(value)));
+        cacheWriter.putAll(getName(), cacheEntries, getCacheConfiguration().getTtl());
+    }
+
+    private byte[] toCacheValue(@Nullable Object value) {
+        Object cacheValue = preProcessCacheValue(value);
+        if (!isAllowNullValues() && cacheValue == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Cache '%s' does not allow 'null' values. Avoid storing null via '@Cacheable(unless=\"#result == null\")' or configure RedisCache to allow 'null' via RedisCacheConfiguration.",
+                    getName()));
+        }
+        return serializeCacheValue(cacheValue);
+    }
+
+    /**
+     * 读取缓存，并按XFetch算法判断是否需要提前刷新<br>
+     * 剩余失效时间越短、加载耗时越长，触发刷新的概率越大：{@code -加载耗时 * beta * ln(random) >= 剩余失效时间}
+     */
+    @Nullable
+    private ValueWrapper getAndRefreshAhead(Object key, Callable<?> valueLoader) {
+        String cacheKey = createCacheKey(key);
+        AccessableDefaultRedisCacheWriter.ValueWithExpiry entry = cacheWriter.getWithExpiry(getName(),
+                serializeCacheKey(cacheKey), serializeCacheKey(cacheKey + COMPUTE_TIME_SUFFIX));
+        if (entry.getValue() == null) {
+            return null;
+        }
+
+        if (isRefreshAfterWriteReached(entry)
+                || (cacheProperties.isRefreshAheadEnabled()
+                        && shouldRefreshAhead(entry.getRemainingTtlMillis(), entry.getComputeTimeMillis()))) {
+            refreshAsync(key, cacheKey, valueLoader);
+        }
+        return new SimpleValueWrapper(fromStoreValue(deserializeCacheValue(entry.getValue())));
+    }
+
+    /**
+     * 写入时长为写入时实际使用的失效时间(包含抖动)减去剩余失效时间，旧格式没有记录失效时间的使用缓存配置的失效时间
+     */
+    private boolean isRefreshAfterWriteReached(AccessableDefaultRedisCacheWriter.ValueWithExpiry entry) {
+        long remainingTtlMillis = entry.getRemainingTtlMillis();
+        long ttlMillis = entry.getEntryTtlMillis() > 0 ? entry.getEntryTtlMillis()
+                : getCacheConfiguration().getTtl().toMillis();
+        if (refreshAfterWrite == null || remainingTtlMillis <= 0 || ttlMillis <= 0) {
+            return false;
+        }
+        return ttlMillis - remainingTtlMillis >= refreshAfterWrite.toMillis();
+    }
+
+    private boolean shouldRefreshAhead(long remainingTtlMillis, long computeTimeMillis) {
+        if (remainingTtlMillis <= 0 || computeTimeMillis <= 0) {
+            return false;
+        }
+
+        //1 - nextDouble()的范围为(0, 1]，避免ln(0)
+        double random = 1 - ThreadLocalRandom.current().nextDouble();
+        return -computeTimeMillis * cacheProperties.getRefreshAheadBeta() * Math.log(random) >= remainingTtlMillis;
+    }
+
+    private void refreshAsync(Object key, String cacheKey, Callable<?> valueLoader) {
+        if (refreshingKeys.putIfAbsent(cacheKey, Boolean.TRUE) != null) {
+            return; //已在刷新中
+        }
+
+        try {
+            refreshAheadExecutor.execute(() -> {
+                try {
+                    loadAndPut(key, valueLoader);
+                } catch (Exception e) {
+                    log.warn("提前刷新缓存[{}]的key[{}]异常", getName(), cacheKey, e);
+                } finally {
+                    refreshingKeys.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //刷新线程池已满时放弃本次刷新，缓存失效后再由调用方加载
+            refreshingKeys.remove(cacheKey);
+        }
+    }
+
+    private Object awaitInFlightLoad(Object key, Callable<?> valueLoader, CompletableFuture<Object> inFlightLoad) {
+        try {
+            return inFlightLoad.get(cacheProperties.getSingleFlightWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (TimeoutException e) {
+            log.warn("等待缓存[{}]的key[{}]加载超时，改为自行加载", getName(), key);
+            return loadAndPut(key, valueLoader);
+        } catch (ExecutionException e) {
+            //和执行加载的线程抛出相同的异常
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    /**
+     * 通过Redis租约保证多个实例间只有一个实例执行加载<br>
+     * 1.获取到租约的实例执行加载并写入缓存<br>
+     * 2.其它实例在等待时间内轮询缓存，缓存写入后直接返回；超过等待时间仍未写入时自行加载
+     */
+    private Object loadWithLease(Object key, String cacheKey, Callable<?> valueLoader) {
+        byte[] leaseKey = serializeCacheKey(cacheKey + LEASE_SUFFIX);
+        byte[] leaseToken = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        if (cacheWriter.acquireLease(leaseKey, leaseToken, cacheProperties.getSingleFlightLeaseTtl())) {
+            try {
+                return loadAndPut(key, valueLoader);
+            } finally {
+                //加载超过租约失效时间时租约可能已被其它实例获取，只释放自己持有的租约
+                cacheWriter.releaseLease(leaseKey, leaseToken);
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + cacheProperties.getSingleFlightLeaseWait().toMillis();
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                Thread.sleep(LEASE_POLL_INTERVAL_MILLIS);
+                ValueWrapper result = get(key);
+                if (result != null) {
+                    return result.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        return loadAndPut(key, valueLoader);
+    }
+
+    private Object loadAndPut(Object key, Callable<?> valueLoader) {
+        Object value;
+        long startTime = System.nanoTime();
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        if (refreshAheadExecutor == null) {
+            put(key, value);
+        } else {
+            //提前刷新需要用到加载耗时，和缓存值一起保存
+            long computeTimeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            String cacheKey = createCacheKey(key);
+            cacheWriter.putWithComputeTime(getName(), serializeCacheKey(cacheKey), toCacheValue(value),
+                    serializeCacheKey(cacheKey + COMPUTE_TIME_SUFFIX), Math.max(computeTimeMillis, 1),
+                    getCacheConfiguration().getTtl());
+        }
+        return value;
+    }
+}
\ No newline at end of file
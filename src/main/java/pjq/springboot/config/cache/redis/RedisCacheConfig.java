@@ -32,30 +32,54 @@
 package pjq.springboot.config.cache.redis;
 
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.BatchStrategy;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
 import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import io.micrometer.core.instrument.MeterRegistry;
 
 import lombok.extern.slf4j.Slf4j;
+import pjq.springboot.config.cache.CacheCustomProperties;
+import pjq.springboot.config.cache.CacheNameSpec;
+import pjq.springboot.config.cache.TtlJitter;
+import pjq.springboot.config.cache.metrics.CacheMetrics;
+import pjq.springboot.config.cache.metrics.MicrometerCacheStatisticsCollector;
+import pjq.springboot.config.multitenant.MultiTenantInfoHolder;
 import pjq.springboot.constant.CacheConstants;
 import pjq.springboot.constant.CacheConstants.CacheManagerNames;
 
@@ -93,75 +117,303 @@ public class RedisCacheConfig {
         return jsonSerializer;
     }
 
+    /**
+     * 默认的Redis缓存配置<br>
+     * pjq.redis.cache.value-format=COMPACT时缓存值使用{@link CompactRedisSerializer}，不能识别的旧格式缓存值仍交给jsonSerializer4Redis读取<br>
+     * pjq.redis.cache.compression-enabled=true时超过阈值的缓存值使用{@link CompressingRedisSerializer}压缩<br>
+     * 紧凑格式序列化器不注册为Bean，避免按类型注入RedisSerializer时出现多个候选
+     *
+     * @param jsonSerializer4Redis
+     * @param builder
+     * @param redisConnectionFactory
+     * @param redisCustomProperties
+     * @param meterRegistryProvider
+     * @return
+     */
     @Bean
     public RedisCacheConfiguration defaultRedisCacheConfiguration(
-            Jackson2JsonRedisSerializer<Object> jsonSerializer4Redis) {
-        return genDefaultRedisCacheConfiguration(jsonSerializer4Redis, CacheConstants.DEFAULT_EXPIRE);
-    }
+            Jackson2JsonRedisSerializer<Object> jsonSerializer4Redis, Jackson2ObjectMapperBuilder builder,
+            RedisConnectionFactory redisConnectionFactory, RedisCustomProperties redisCustomProperties,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        RedisCustomProperties.Cache cacheProperties = redisCustomProperties.getCache();
+        RedisSerializer<Object> valueSerializer = jsonSerializer4Redis;
+        if (cacheProperties.getValueFormat() == RedisCustomProperties.ValueFormat.COMPACT) {
+            valueSerializer = new CompactRedisSerializer(
+                    builder.build().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY),
+                    BasicPolymorphicTypeValidator.builder().allowIfSubType(Object.class).build(),
+                    new CacheTypeRegistry(redisConnectionFactory), jsonSerializer4Redis);
+        }
+        if (cacheProperties.isCompressionEnabled()) {
+            valueSerializer = new CompressingRedisSerializer(valueSerializer,
+                    (int) cacheProperties.getCompressionThreshold().toBytes(), cacheProperties.getCompressionLevel(),
+                    meterRegistryProvider.getIfAvailable());
+        }
 
-    private RedisCacheConfiguration genDefaultRedisCacheConfiguration(
-            Jackson2JsonRedisSerializer<Object> jsonSerializer4Redis, Duration ttl) {
         //禁用redisKey的前缀(这里配了前缀的话会自动在生成的key前面加上CacheName::)，直接在KeyGenerator中处理
         StringRedisSerializer stringSerializer = new StringRedisSerializer();
-        return RedisCacheConfiguration.defaultCacheConfig().entryTtl(ttl).disableKeyPrefix()
+        return RedisCacheConfiguration.defaultCacheConfig().entryTtl(CacheConstants.DEFAULT_EXPIRE).disableKeyPrefix()
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(stringSerializer))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer4Redis));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer));
+    }
+
+    /**
+     * 缓存相关功能订阅Redis消息的入口<br>
+     * 只有启用通知方式等待缓存锁、使用两级缓存等需要订阅消息时才创建内部的消息监听容器
+     *
+     * @param redisConnectionFactory
+     * @return
+     */
+    @Bean
+    public CacheMessageSubscriber cacheMessageSubscriber(RedisConnectionFactory redisConnectionFactory) {
+        return new CacheMessageSubscriber(redisConnectionFactory);
     }
 
+    /**
+     * Redis近端缓存，启用pjq.redis.cache.near-cache-enabled时加载<br>
+     * 默认和动态配置的Redis缓存管理器共用，没有配置跟踪的key前缀时使用基础缓存key前缀
+     *
+     * @param redisConnectionFactory
+     * @param redisCustomProperties
+     * @param basePrefix
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pjq.redis.cache", name = "near-cache-enabled", havingValue = "true")
+    public RedisNearCache redisNearCache(RedisConnectionFactory redisConnectionFactory,
+            RedisCustomProperties redisCustomProperties,
+            @Value(CacheConstants.CACHE_KEY_BASE_PREFIX) String basePrefix) {
+        RedisCustomProperties.Cache cacheProperties = redisCustomProperties.getCache();
+        //和CacheKeyPrefixDecorator一样去掉可能存在的"/"号
+        List<String> prefixes = cacheProperties.getNearCachePrefixes().isEmpty()
+                ? Collections.singletonList(StringUtils.delete(basePrefix, "/"))
+                : cacheProperties.getNearCachePrefixes();
+        return new RedisNearCache(redisConnectionFactory, cacheProperties.getNearCacheMaximumSize(),
+                cacheProperties.getNearCacheTtl(), prefixes);
+    }
+
+    /**
+     * Redis缓存writer共用的连接，启用pjq.redis.cache.shared-connection-enabled时加载<br>
+     * 默认和动态配置的Redis缓存管理器共用
+     *
+     * @param redisConnectionFactory
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pjq.redis.cache", name = "shared-connection-enabled", havingValue = "true")
+    public RedisSharedCacheConnection redisSharedCacheConnection(RedisConnectionFactory redisConnectionFactory) {
+        return new RedisSharedCacheConnection(redisConnectionFactory);
+    }
+
+    /**
+     * Redis缓存的热点key探测器，启用pjq.redis.cache.hot-key-enabled时加载<br>
+     * 默认和动态配置的Redis缓存管理器共用
+     *
+     * @param redisCustomProperties
+     * @param meterRegistryProvider
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pjq.redis.cache", name = "hot-key-enabled", havingValue = "true")
+    public RedisHotKeyDetector redisHotKeyDetector(RedisCustomProperties redisCustomProperties,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        log.info("加载Redis缓存的热点key探测器");
+        return new RedisHotKeyDetector(redisCustomProperties.getCache(), meterRegistryProvider.getIfAvailable());
+    }
+
+    /**
+     * 查看Redis缓存当前热点key的actuator端点，启用pjq.redis.cache.hot-key-enabled时加载
+     *
+     * @param redisHotKeyDetector
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pjq.redis.cache", name = "hot-key-enabled", havingValue = "true")
+    public RedisHotKeyEndpoint redisHotKeyEndpoint(RedisHotKeyDetector redisHotKeyDetector) {
+        return new RedisHotKeyEndpoint(redisHotKeyDetector);
+    }
+
+    /**
+     * 默认的Redis缓存管理器<br>
+     * 1.使用{@link AccessableDefaultRedisCacheWriter}，以支持pjq.cache.ttl-jitter配置的失效时间抖动，其它行为和默认的writer一致<br>
+     * 2.启用pjq.cache.metrics-enabled时记录缓存指标<br>
+     * 3.启用pjq.redis.cache.near-cache-enabled时读取缓存优先使用{@link RedisNearCache}<br>
+     * 4.启用pjq.redis.cache.scripted-enabled时putIfAbsent和remove以Lua脚本执行<br>
+     * 5.启用pjq.redis.cache.shared-connection-enabled时普通的读写命令在{@link RedisSharedCacheConnection}上执行<br>
+     * 6.启用pjq.redis.cache.hot-key-enabled时热点key的值通过{@link RedisHotKeyDetector}在本地保存很短的时间
+     *
+     * @return
+     */
     @Bean(CacheManagerNames.REDIS_CACHE_DEFAULT_MANAGER)
     public CacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory,
-            RedisCacheConfiguration defaultRedisCacheConfiguration) {
+            RedisCacheConfiguration defaultRedisCacheConfiguration, CacheCustomProperties cacheCustomProperties,
+            RedisCustomProperties redisCustomProperties, ObjectProvider<CacheMetrics> cacheMetricsProvider,
+            ObjectProvider<RedisNearCache> redisNearCacheProvider,
+            ObjectProvider<RedisSharedCacheConnection> redisSharedCacheConnectionProvider,
+            ObjectProvider<RedisHotKeyDetector> redisHotKeyDetectorProvider) {
         log.info("加载默认的Redis缓存管理器:{}", CacheManagerNames.REDIS_CACHE_DEFAULT_MANAGER);
-        return RedisCacheManager.builder(redisConnectionFactory).cacheDefaults(defaultRedisCacheConfiguration).build();
+        CacheMetrics cacheMetrics = cacheMetricsProvider.getIfAvailable();
+        CacheStatisticsCollector statisticsCollector = genStatisticsCollector(cacheMetrics,
+                CacheManagerNames.REDIS_CACHE_DEFAULT_MANAGER);
+        RedisCacheWriter cacheWriter = new AccessableDefaultRedisCacheWriter(redisConnectionFactory, Duration.ZERO,
+                Duration.ZERO, null, statisticsCollector, BatchStrategies.keys(),
+                TtlJitter.parse(cacheCustomProperties.getTtlJitter()), redisNearCacheProvider.getIfAvailable(),
+                redisCustomProperties.getCache().isScriptedEnabled(),
+                redisSharedCacheConnectionProvider.getIfAvailable(), redisHotKeyDetectorProvider.getIfAvailable());
+        if (cacheMetrics == null) {
+            return RedisCacheManager.builder(cacheWriter).cacheDefaults(defaultRedisCacheConfiguration).build();
+        }
+
+        return new RedisCacheManager(cacheWriter, defaultRedisCacheConfiguration) {
+            @Override
+            protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfig) {
+                return new RedisCache(name, cacheWriter, cacheConfig) {
+                    @Override
+                    public <T> T get(Object key, Callable<T> valueLoader) {
+                        return super.get(key,
+                                cacheMetrics.timed(CacheManagerNames.REDIS_CACHE_DEFAULT_MANAGER, name, valueLoader));
+                    }
+                };
+            }
+        };
     }
 
     /**
      * 根据cacheName实现动态缓存配置的manager<br>
      * 1.需要@{@link Cacheable}等显式指定cacheManager={@link CacheManagerNames#REDIS_CACHE_DYNAMIC_CONFIG_MANAGER}<br>
-     * 2.目前只实现了动态失效时间，有需要可再扩展
+     * 2.支持的配置见{@link CacheNameSpec}，可以在cacheName中配置，也可以通过pjq.cache.specs配置；Redis缓存不支持max配置项<br>
+     * 3.创建的cache对象为{@link DynamicConfigRedisCache}，可强转后使用批量读写的方法<br>
+     * 4.可通过pjq.redis.cache.lock-*配置启用缓存写锁，及使用通知方式等待锁释放<br>
+     * 5.可通过pjq.redis.cache.clean-*配置清理整个缓存时的方式，默认使用SCAN+UNLINK分批删除<br>
+     * 6.可通过pjq.redis.cache.versioned-namespace-enabled启用版本号模式，清理整个缓存时只递增版本号<br>
+     * 7.{@code @Cacheable(sync = true)}时合并同一key的并发加载，可通过pjq.redis.cache.single-flight-*配置启用多实例间的合并<br>
+     * 8.可通过pjq.redis.cache.refresh-ahead-*配置启用缓存提前刷新，也可以在cacheName中通过refresh配置项指定写入后多久刷新<br>
+     * 9.失效时间抖动默认使用pjq.cache.ttl-jitter配置，也可以在cacheName中单独配置，例如{@code orders#600;jitter=10%}<br>
+     * 10.缓存值的序列化方式和{@link #defaultRedisCacheConfiguration}一致，可通过pjq.redis.cache.value-format配置<br>
+     * 11.启用pjq.cache.metrics-enabled时记录缓存指标<br>
+     * 12.启用pjq.redis.cache.near-cache-enabled时读取缓存优先使用{@link RedisNearCache}<br>
+     * 13.启用pjq.redis.cache.scripted-enabled时putIfAbsent和remove以Lua脚本执行，不需要先检查锁<br>
+     * 14.启用pjq.redis.cache.shared-connection-enabled时不需要检查锁的命令在{@link RedisSharedCacheConnection}上执行，
+     * 启用缓存锁时只有Lua脚本方式的putIfAbsent和remove使用共用连接<br>
+     * 15.启用pjq.redis.cache.hot-key-enabled时热点key的值通过{@link RedisHotKeyDetector}在本地保存很短的时间，
+     * 只对单个key的读取生效，批量读取及提前刷新的读取不经过热点key的本地值
      *
      * @return
      */
     @Bean(CacheManagerNames.REDIS_CACHE_DYNAMIC_CONFIG_MANAGER)
     public CacheManager dynamicConfigRedisCacheManager(RedisConnectionFactory redisConnectionFactory,
-            RedisCacheConfiguration defaultRedisCacheConfiguration,
-            Jackson2JsonRedisSerializer<Object> jsonSerializer4Redis) {
+            RedisCacheConfiguration defaultRedisCacheConfiguration, RedisCustomProperties redisCustomProperties,
+            CacheCustomProperties cacheCustomProperties, CacheMessageSubscriber cacheMessageSubscriber,
+            ObjectProvider<CacheMetrics> cacheMetricsProvider, ObjectProvider<RedisNearCache> redisNearCacheProvider,
+            ObjectProvider<RedisSharedCacheConnection> redisSharedCacheConnectionProvider,
+            ObjectProvider<RedisHotKeyDetector> redisHotKeyDetectorProvider,
+            ObjectProvider<MultiTenantInfoHolder> multiTenantInfoHolderProvider) {
         log.info("加载可动态配置的Redis缓存管理器:{}", CacheManagerNames.REDIS_CACHE_DYNAMIC_CONFIG_MANAGER);
-        RedisCacheWriter cacheWriter = new AccessableDefaultRedisCacheWriter(redisConnectionFactory,
-                BatchStrategies.keys());
+        RedisCustomProperties.Cache cacheProperties = redisCustomProperties.getCache();
+
+        //sleepTime为0时不启用缓存写锁
+        Duration sleepTime = cacheProperties.isLockEnabled() ? cacheProperties.getLockSleepTime() : Duration.ZERO;
+        CacheLockNotifier lockNotifier = null;
+        if (cacheProperties.isLockEnabled()
+                && cacheProperties.getLockWaitMode() == RedisCustomProperties.LockWaitMode.NOTIFY) {
+            lockNotifier = new CacheLockNotifier(cacheProperties.getLockWaitTimeout());
+            cacheMessageSubscriber.subscribe(lockNotifier, new ChannelTopic(CacheLockNotifier.CHANNEL));
+        }
+
+        BatchStrategy batchStrategy = cacheProperties.getCleanStrategy() == RedisCustomProperties.CleanStrategy.KEYS
+                ? BatchStrategies.keys()
+                : new ScanBatchStrategy(cacheProperties.getCleanScanCount(), cacheProperties.isCleanUseUnlink());
+
+        CacheMetrics cacheMetrics = cacheMetricsProvider.getIfAvailable();
+        AccessableDefaultRedisCacheWriter cacheWriter = new AccessableDefaultRedisCacheWriter(redisConnectionFactory,
+                sleepTime, cacheProperties.getLockTtl(), lockNotifier,
+                genStatisticsCollector(cacheMetrics, CacheManagerNames.REDIS_CACHE_DYNAMIC_CONFIG_MANAGER),
+                batchStrategy, TtlJitter.parse(cacheCustomProperties.getTtlJitter()),
+                redisNearCacheProvider.getIfAvailable(), cacheProperties.isScriptedEnabled(),
+                redisSharedCacheConnectionProvider.getIfAvailable(), redisHotKeyDetectorProvider.getIfAvailable());
+        CacheGenerationHolder generationHolder = cacheProperties.isVersionedNamespaceEnabled()
+                ? new CacheGenerationHolder(cacheWriter, cacheProperties.getGenerationRefreshInterval())
+                : null;
+        //核心线程在有刷新任务时才创建，没有缓存启用刷新时不占用线程
+        Executor refreshAheadExecutor = genRefreshAheadExecutor(cacheProperties,
+                multiTenantInfoHolderProvider.getIfAvailable());
         RedisCacheManager redisCacheManager = new RedisCacheManager(cacheWriter, defaultRedisCacheConfiguration) {
-            private Map<String, RedisCache> cacheConfigurationMap = new HashMap<>();
+            private final ConcurrentMap<String, RedisCache> cacheConfigurationMap = new ConcurrentHashMap<>();
 
             @Override
             protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfig) {
-                try {
-                    //根据cacheName后面的'#'号分隔的秒数，动态创建对应的cache对象
-                    if (cacheConfigurationMap.containsKey(name)) {
-                        return cacheConfigurationMap.get(name);
-                    }
+                return cacheConfigurationMap.computeIfAbsent(name, this::genRedisCache);
+            }
 
-                    if (!name.contains("#")) {
-                        return createWithConfig(name, defaultRedisCacheConfiguration); //没有Duration则返回默认的
+            private RedisCache genRedisCache(String name) {
+                RedisCacheConfiguration cacheConfiguration = defaultRedisCacheConfiguration;
+                Duration refreshAfterWrite = null;
+                try {
+                    //根据cacheName后面的'#'号分隔的配置，动态创建对应的cache对象
+                    CacheNameSpec cacheNameSpec = CacheNameSpec.parse(name, cacheCustomProperties.getSpecs());
+                    if (cacheNameSpec.getTtlJitter() != null) {
+                        cacheWriter.registerTtlJitter(name, cacheNameSpec.getTtlJitter());
                     }
-
-                    Long expireDurationSeconds = Long.valueOf(name.substring(name.indexOf("#") + 1));
-                    if (expireDurationSeconds <= 0) {
-                        return createWithConfig(name, defaultRedisCacheConfiguration); //Duration解析错误则返回默认的
+                    if (cacheNameSpec.getTtl() != null) {
+                        //只替换失效时间，序列化方式和默认配置保持一致；没有Duration或Duration解析错误则使用默认的
+                        cacheConfiguration = defaultRedisCacheConfiguration.entryTtl(cacheNameSpec.getTtl());
                     }
-
-                    return createWithConfig(name, genDefaultRedisCacheConfiguration(jsonSerializer4Redis,
-                            Duration.ofSeconds(expireDurationSeconds)));
+                    refreshAfterWrite = cacheNameSpec.getRefreshAfterWrite();
                 } catch (Exception e) {
-                    return createWithConfig(name, defaultRedisCacheConfiguration);
+                    log.warn("解析缓存[{}]的配置异常，使用默认配置", name, e);
                 }
-            }
 
-            private RedisCache createWithConfig(String name, RedisCacheConfiguration cacheConfiguration) {
-                RedisCache redisCache = super.createRedisCache(name, cacheConfiguration);
-                cacheConfigurationMap.put(name, redisCache);
-                return redisCache;
+                //使用支持批量读写的cache对象
+                Executor cacheRefreshExecutor = cacheProperties.isRefreshAheadEnabled() || refreshAfterWrite != null
+                        ? refreshAheadExecutor
+                        : null;
+                return cacheMetrics == null
+                        ? new DynamicConfigRedisCache(name, cacheWriter, cacheConfiguration, cacheProperties,
+                                generationHolder, cacheRefreshExecutor, refreshAfterWrite)
+                        : new DynamicConfigRedisCache(name, cacheWriter, cacheConfiguration, cacheProperties,
+                                generationHolder, cacheRefreshExecutor, refreshAfterWrite) {
+                            @Override
+                            public <T> T get(Object key, Callable<T> valueLoader) {
+                                return super.get(key, cacheMetrics.timed(
+                                        CacheManagerNames.REDIS_CACHE_DYNAMIC_CONFIG_MANAGER, name, valueLoader));
+                            }
+                        };
             }
         };
         return redisCacheManager;
     }
+
+    private static CacheStatisticsCollector genStatisticsCollector(@Nullable CacheMetrics cacheMetrics,
+            String managerName) {
+        return cacheMetrics != null ? new MicrometerCacheStatisticsCollector(cacheMetrics, managerName)
+                : CacheStatisticsCollector.none();
+    }
+
+    /**
+     * 缓存提前刷新使用的线程池<br>
+     * 1.不注册为Bean，避免影响SpringBoot默认的TaskExecutor；使用守护线程，不需要在应用关闭时处理<br>
+     * 2.多租户模式下通过{@link MultiTenantInfoHolder#getContextTaskDecorator()}把租户上下文传递到刷新线程，
+     * 没有提供时不启用提前刷新，避免刷新线程以错误的租户执行方法
+     *
+     * @param cacheProperties
+     * @param multiTenantInfoHolder
+     * @return 不启用提前刷新时返回null
+     */
+    @Nullable
+    private Executor genRefreshAheadExecutor(RedisCustomProperties.Cache cacheProperties,
+            @Nullable MultiTenantInfoHolder multiTenantInfoHolder) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-refresh-ahead-");
+        threadFactory.setDaemon(true);
+        Executor executor = new ThreadPoolExecutor(cacheProperties.getRefreshAheadThreads(),
+                cacheProperties.getRefreshAheadThreads(), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(cacheProperties.getRefreshAheadQueueCapacity()), threadFactory);
+        if (multiTenantInfoHolder == null) {
+            return executor;
+        }
+
+        Executor contextExecutor = multiTenantInfoHolder.decorateExecutor(executor);
+        if (contextExecutor == null) {
+            log.warn("已启用多租户模式但没有提供传递租户上下文的TaskDecorator，Redis缓存不启用提前刷新");
+        }
+        return contextExecutor;
+    }
 }
\ No newline at end of file
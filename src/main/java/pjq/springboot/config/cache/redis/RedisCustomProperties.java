@@ -31,9 +31,15 @@
  */
 package pjq.springboot.config.cache.redis;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
 import lombok.Data;
 
@@ -55,4 +61,261 @@ public class RedisCustomProperties {
 	 * 分别需要redis.crt和redis.key两个文件
 	 */
 	private String sslCertsDir = "redisSslCerts";
+
+	/**
+	 * 自定义Redis缓存管理器的相关配置
+	 */
+	private Cache cache = new Cache();
+
+	@Data
+	public static class Cache {
+		/**
+		 * 是否启用缓存写锁<br>
+		 * 启用后putIfAbsent和clean会对整个缓存加锁，同一缓存的其它操作需要等待锁释放后再执行
+		 */
+		private boolean lockEnabled = false;
+
+		/**
+		 * 等待缓存锁释放的方式<br>
+		 * 默认为轮询方式
+		 */
+		private LockWaitMode lockWaitMode = LockWaitMode.POLLING;
+
+		/**
+		 * 轮询方式下，每次检查缓存锁之间的间隔
+		 */
+		private Duration lockSleepTime = Duration.ofMillis(50);
+
+		/**
+		 * 缓存锁的失效时间<br>
+		 * 用于避免持有锁的实例异常退出后锁一直不释放，配置为0时不设置失效时间
+		 */
+		private Duration lockTtl = Duration.ofSeconds(30);
+
+		/**
+		 * 通知方式下，等待缓存锁释放的最长时间，超时后抛出异常
+		 */
+		private Duration lockWaitTimeout = Duration.ofSeconds(10);
+
+		/**
+		 * 清理整个缓存(例如{@code @CacheEvict(allEntries = true)})时查找key的方式<br>
+		 * 默认使用SCAN，避免KEYS命令阻塞Redis
+		 */
+		private CleanStrategy cleanStrategy = CleanStrategy.SCAN;
+
+		/**
+		 * SCAN方式下每次SCAN的COUNT值，同时也是每批删除的key数量
+		 */
+		private int cleanScanCount = 1000;
+
+		/**
+		 * SCAN方式下是否使用UNLINK代替DEL删除key(需要Redis4.0及以上版本)
+		 */
+		private boolean cleanUseUnlink = true;
+
+		/**
+		 * 是否启用缓存版本号模式<br>
+		 * 启用后缓存key会带上缓存的版本号，清理整个缓存时只需要递增版本号(一次INCR)，旧版本的key依赖失效时间自动删除<br>
+		 * 注意启用后没有失效时间的缓存在清理后不会被删除
+		 */
+		private boolean versionedNamespaceEnabled = false;
+
+		/**
+		 * 版本号模式下，本地缓存的版本号的刷新间隔<br>
+		 * 其它实例清理缓存后，最多经过该间隔后本实例才会使用新版本号
+		 */
+		private Duration generationRefreshInterval = Duration.ofSeconds(1);
+
+		/**
+		 * 两级缓存中每个本地缓存的最大数量
+		 */
+		private long layeredLocalMaximumSize = 1000;
+
+		/**
+		 * 两级缓存中本地缓存的最大失效时间<br>
+		 * 本地缓存的失效时间取缓存本身失效时间和该值的较小值，用于限制丢失失效消息时读到旧数据的时长
+		 */
+		private Duration layeredLocalMaxTtl = Duration.ofMinutes(5);
+
+		/**
+		 * 是否启用分布式的并发加载合并<br>
+		 * 默认只在本实例内合并同一key的并发加载({@code @Cacheable(sync = true)})；启用后通过Redis租约保证多个实例间只有一个实例执行加载
+		 */
+		private boolean singleFlightDistributedEnabled = false;
+
+		/**
+		 * 分布式并发加载合并的租约失效时间，需要大于方法的执行时间
+		 */
+		private Duration singleFlightLeaseTtl = Duration.ofSeconds(10);
+
+		/**
+		 * 没有获取到租约的实例等待其它实例写入缓存的最长时间，超时后自行加载
+		 */
+		private Duration singleFlightLeaseWait = Duration.ofSeconds(3);
+
+		/**
+		 * 本实例内等待同一key正在执行的加载的最长时间，超时后自行加载，避免加载线程异常时等待线程一直阻塞
+		 */
+		private Duration singleFlightWaitTimeout = Duration.ofSeconds(30);
+
+		/**
+		 * 是否启用缓存提前刷新<br>
+		 * 启用后{@code @Cacheable(sync = true)}读取快要失效的缓存时，按XFetch算法的概率在后台线程中异步刷新缓存
+		 */
+		private boolean refreshAheadEnabled = false;
+
+		/**
+		 * XFetch算法的beta值，大于1时更倾向于提前刷新，小于1时更倾向于延后刷新
+		 */
+		private double refreshAheadBeta = 1.0;
+
+		/**
+		 * 异步刷新缓存的线程数
+		 */
+		private int refreshAheadThreads = 4;
+
+		/**
+		 * 异步刷新缓存的等待队列长度，队列已满时放弃刷新
+		 */
+		private int refreshAheadQueueCapacity = 1000;
+
+		/**
+		 * 缓存值的序列化格式<br>
+		 * 默认为JSON，切换为COMPACT后旧格式的缓存值仍然可以读取
+		 */
+		private ValueFormat valueFormat = ValueFormat.JSON;
+
+		/**
+		 * 是否压缩较大的缓存值<br>
+		 * 未升级的实例不能读取压缩后的值，滚动发布时需要所有实例升级后再启用
+		 */
+		private boolean compressionEnabled = false;
+
+		/**
+		 * 缓存值序列化后超过该大小时才压缩
+		 */
+		private DataSize compressionThreshold = DataSize.ofKilobytes(16);
+
+		/**
+		 * 压缩级别，取值见{@link java.util.zip.Deflater}<br>
+		 * 默认为BEST_SPEED，优先减少CPU消耗
+		 */
+		private int compressionLevel = Deflater.BEST_SPEED;
+
+		/**
+		 * 是否启用基于RESP3客户端缓存(CLIENT TRACKING)的近端缓存<br>
+		 * 只支持Lettuce的单机/主从连接，启用后读取过的缓存值保存在本地，Redis推送失效消息时删除
+		 */
+		private boolean nearCacheEnabled = false;
+
+		/**
+		 * 近端缓存的最大缓存项数量
+		 */
+		private long nearCacheMaximumSize = 10000;
+
+		/**
+		 * 近端缓存项的最长保存时间，作为失效消息丢失时的兜底
+		 */
+		private Duration nearCacheTtl = Duration.ofMinutes(5);
+
+		/**
+		 * 近端缓存跟踪的key前缀，只有以这些前缀开头的key才保存到本地<br>
+		 * 为空时使用基础缓存key前缀；多租户模式下key以租户名开头，需要配置各租户的前缀
+		 */
+		private List<String> nearCachePrefixes = new ArrayList<>();
+
+		/**
+		 * 是否以Lua脚本执行putIfAbsent和remove，脚本通过EVALSHA执行；clean不使用脚本，按pjq.redis.cache.clean-*配置执行<br>
+		 * 缓存未锁定时每个操作只需一次网络往返；启用缓存锁时脚本同时访问缓存key和锁key，Redis集群下需要两者在同一个slot
+		 */
+		private boolean scriptedEnabled = false;
+
+		/**
+		 * 是否在共用的Lettuce原生连接上执行不需要检查锁的普通读写命令，不再每次获取和归还连接<br>
+		 * 只支持Lettuce的单机/主从连接；缓存锁、pipeline及清空缓存仍使用连接工厂获取的连接
+		 * 连接工厂已开启shareNativeConnection(默认)时连接工厂的连接本身就是共用的，此配置不再建立额外的连接
+		 */
+		private boolean sharedConnectionEnabled = false;
+
+		/**
+		 * 是否探测读取缓存时的热点key，热点key的值在本地保存很短的时间，减少单个key对Redis的访问压力<br>
+		 * 启用后可通过actuator的cachehotkeys端点查看各缓存当前的热点key
+		 */
+		private boolean hotKeyEnabled = false;
+
+		/**
+		 * 热点key的统计周期，每个周期结束时重新计算热点key
+		 */
+		private Duration hotKeyWindow = Duration.ofSeconds(10);
+
+		/**
+		 * 读取缓存时参与计数的采样率，取值(0, 1]
+		 */
+		private double hotKeySampleRate = 0.1;
+
+		/**
+		 * 一个统计周期内估算的访问次数达到该值时才可能成为热点key
+		 */
+		private long hotKeyThreshold = 1000;
+
+		/**
+		 * 每个缓存最多的热点key数量
+		 */
+		private int hotKeyTopK = 16;
+
+		/**
+		 * 热点key的值在本地保存的时间，也是其它实例修改缓存后本实例最多读到旧值的时长
+		 */
+		private Duration hotKeyLocalTtl = Duration.ofSeconds(1);
+
+		/**
+		 * 计数使用的Count-Min Sketch每行的计数器数量，越大估算越准确，每个缓存占用(该值*4*8)字节
+		 */
+		private int hotKeySketchWidth = 2048;
+	}
+
+	/**
+	 * 缓存值的序列化格式
+	 */
+	public enum ValueFormat {
+		/**
+		 * 使用完整类名作为类型信息的JSON
+		 */
+		JSON,
+
+		/**
+		 * 使用类型编号作为类型信息的JSON，类型编号保存在Redis中，缓存值较小的对象时体积明显减少
+		 */
+		COMPACT
+	}
+
+	/**
+	 * 清理整个缓存时查找key的方式
+	 */
+	public enum CleanStrategy {
+		/**
+		 * 使用KEYS命令一次查找所有key，key数量较多时会阻塞Redis
+		 */
+		KEYS,
+
+		/**
+		 * 使用SCAN命令分批查找并删除key
+		 */
+		SCAN
+	}
+
+	/**
+	 * 等待缓存锁释放的方式
+	 */
+	public enum LockWaitMode {
+		/**
+		 * 轮询检查锁是否存在
+		 */
+		POLLING,
+
+		/**
+		 * 释放锁时通过pub/sub发送通知，等待的线程收到通知后再继续执行，等待期间不占用Redis连接
+		 */
+		NOTIFY
+	}
 }
\ No newline at end of file
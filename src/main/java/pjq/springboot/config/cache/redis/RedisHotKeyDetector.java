@@ -0,0 +1,331 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Redis缓存的热点key探测器<br>
+ * 1.读取缓存时按采样率对key计数，计数使用每个缓存单独的{@link CountMinSketch}，估算的访问次数超过阈值的key作为候选<br>
+ * 2.每个统计周期结束时，从候选中取访问次数最多的前K个作为该缓存的热点key，并清空计数重新统计<br>
+ * 3.热点key从Redis读取到的值在本地保存很短的时间，期间直接返回本地的值，从本地返回的读取也参与计数，
+ * 所以key持续被访问时会一直作为热点key；本实例写入或删除缓存时同时删除本地的值，其它实例修改缓存后最多在本地保存时间后读到新值；
+ * 和{@link RedisNearCache}一样，读取Redis期间本实例删除过本地的值时不保存读取结果，避免保存写入前的旧值<br>
+ * 4.启用指标时记录各缓存的热点key数量(pjq.cache.hotkeys)及从本地返回的次数(pjq.cache.hotkey.local.hits)
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+public class RedisHotKeyDetector implements DisposableBean {
+    private static final String TAG_CACHE = "cache";
+
+    /**
+     * 每个缓存的候选key数量上限为topK的倍数，避免访问分布较平均时候选数量过多
+     */
+    private static final int CANDIDATE_FACTOR = 8;
+
+    private final double sampleRate;
+    private final long threshold;
+    private final int topK;
+    private final Duration localTtl;
+    private final int sketchWidth;
+    private final @Nullable MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, CacheHotKeys> cacheHotKeysMap = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    RedisHotKeyDetector(RedisCustomProperties.Cache properties, @Nullable MeterRegistry meterRegistry) {
+        this.sampleRate = Math.min(Math.max(properties.getHotKeySampleRate(), 0.0001), 1.0);
+        this.threshold = properties.getHotKeyThreshold();
+        this.topK = properties.getHotKeyTopK();
+        this.localTtl = properties.getHotKeyLocalTtl();
+        this.sketchWidth = properties.getHotKeySketchWidth();
+        this.meterRegistry = meterRegistry;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("pjq-cache-hot-key-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long windowMillis = properties.getHotKeyWindow().toMillis();
+        scheduler.scheduleAtFixedRate(this::rotate, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次读取，并获取热点key在本地保存的值
+     *
+     * @param name
+     * @param key
+     * @return 不是热点key或本地没有保存值时返回null
+     */
+    @Nullable
+    byte[] getLocal(String name, byte[] key) {
+        CacheHotKeys cacheHotKeys = getCacheHotKeys(name);
+        cacheHotKeys.record(key);
+        return cacheHotKeys.getLocal(key);
+    }
+
+    /**
+     * 读取Redis前获取删除本地值的序号，保存读取结果时用于判断读取期间是否删除过本地的值
+     *
+     * @param name
+     * @return
+     */
+    long sequence(String name) {
+        return getCacheHotKeys(name).invalidationSequence.get();
+    }
+
+    /**
+     * 保存从Redis读取到的值，只有热点key才保存
+     *
+     * @param name
+     * @param key
+     * @param value
+     * @param sequence
+     *         读取Redis前通过{@link #sequence(String)}获取的序号
+     */
+    void putLocal(String name, byte[] key, byte[] value, long sequence) {
+        getCacheHotKeys(name).putLocal(key, value, sequence);
+    }
+
+    /**
+     * 删除本地保存的值，用于本实例写入或删除缓存时
+     *
+     * @param name
+     * @param key
+     */
+    void evict(String name, byte[] key) {
+        CacheHotKeys cacheHotKeys = cacheHotKeysMap.get(name);
+        if (cacheHotKeys != null) {
+            cacheHotKeys.invalidationSequence.incrementAndGet();
+            cacheHotKeys.localValues.invalidate(ByteBuffer.wrap(key));
+        }
+    }
+
+    /**
+     * 删除缓存在本地保存的所有值，用于本实例清空缓存时
+     *
+     * @param name
+     */
+    void clear(String name) {
+        CacheHotKeys cacheHotKeys = cacheHotKeysMap.get(name);
+        if (cacheHotKeys != null) {
+            cacheHotKeys.invalidationSequence.incrementAndGet();
+            cacheHotKeys.localValues.invalidateAll();
+        }
+    }
+
+    /**
+     * 获取各缓存当前的热点key
+     *
+     * @return key为缓存名，按缓存名排序；热点key按估算的访问次数从多到少排序
+     */
+    public Map<String, List<HotKey>> getHotKeys() {
+        Map<String, List<HotKey>> result = new TreeMap<>();
+        cacheHotKeysMap.forEach((name, cacheHotKeys) -> {
+            List<HotKey> hotKeys = getHotKeys(name);
+            if (!hotKeys.isEmpty()) {
+                result.put(name, hotKeys);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 获取指定缓存当前的热点key
+     *
+     * @param name
+     * @return 按估算的访问次数从多到少排序
+     */
+    public List<HotKey> getHotKeys(String name) {
+        CacheHotKeys cacheHotKeys = cacheHotKeysMap.get(name);
+        if (cacheHotKeys == null) {
+            return Collections.emptyList();
+        }
+
+        List<HotKey> hotKeys = new ArrayList<>(cacheHotKeys.hotKeys.size());
+        cacheHotKeys.hotKeys.forEach((key, count) -> hotKeys.add(
+                new HotKey(StandardCharsets.UTF_8.decode(key.duplicate()).toString(), count)));
+        return hotKeys;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private CacheHotKeys getCacheHotKeys(String name) {
+        CacheHotKeys cacheHotKeys = cacheHotKeysMap.get(name);
+        return cacheHotKeys != null ? cacheHotKeys : cacheHotKeysMap.computeIfAbsent(name, CacheHotKeys::new);
+    }
+
+    private void rotate() {
+        cacheHotKeysMap.values().forEach(cacheHotKeys -> {
+            try {
+                cacheHotKeys.rotate();
+            } catch (Exception e) {
+                log.warn("统计缓存[{}]的热点key异常", cacheHotKeys.name, e);
+            }
+        });
+    }
+
+    /**
+     * 热点key及其在上一个统计周期中估算的访问次数
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class HotKey {
+        private final String key;
+        private final long estimatedCount;
+    }
+
+    private class CacheHotKeys {
+        private final String name;
+        private final CountMinSketch sketch = new CountMinSketch(sketchWidth);
+        private final ConcurrentMap<ByteBuffer, Long> candidates = new ConcurrentHashMap<>();
+        private final Cache<ByteBuffer, byte[]> localValues;
+        private final AtomicLong invalidationSequence = new AtomicLong();
+        private final @Nullable Counter localHits;
+
+        /**
+         * 当前的热点key，每个统计周期整体替换，替换后不再修改
+         */
+        private volatile Map<ByteBuffer, Long> hotKeys = Collections.emptyMap();
+
+        CacheHotKeys(String name) {
+            this.name = name;
+            this.localValues = Caffeine.newBuilder().expireAfterWrite(localTtl).maximumSize(topK).build();
+            if (meterRegistry != null) {
+                Gauge.builder("pjq.cache.hotkeys", this, cacheHotKeys -> cacheHotKeys.hotKeys.size())
+                        .description("缓存当前的热点key数量").tag(TAG_CACHE, name).register(meterRegistry);
+                localHits = Counter.builder("pjq.cache.hotkey.local.hits").description("热点key从本地返回的次数")
+                        .tag(TAG_CACHE, name).register(meterRegistry);
+            } else {
+                localHits = null;
+            }
+        }
+
+        void record(byte[] key) {
+            if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                return;
+            }
+
+            long estimate = (long) (sketch.increment(key) / sampleRate);
+            if (estimate < threshold) {
+                return;
+            }
+
+            ByteBuffer candidateKey = ByteBuffer.wrap(key);
+            if (candidates.replace(candidateKey, estimate) == null && candidates.size() < topK * CANDIDATE_FACTOR) {
+                candidates.putIfAbsent(ByteBuffer.wrap(key.clone()), estimate);
+            }
+        }
+
+        @Nullable
+        byte[] getLocal(byte[] key) {
+            Map<ByteBuffer, Long> currentHotKeys = hotKeys;
+            if (currentHotKeys.isEmpty()) {
+                return null;
+            }
+
+            ByteBuffer localKey = ByteBuffer.wrap(key);
+            byte[] value = currentHotKeys.containsKey(localKey) ? localValues.getIfPresent(localKey) : null;
+            if (value != null && localHits != null) {
+                localHits.increment();
+            }
+            return value;
+        }
+
+        void putLocal(byte[] key, byte[] value, long sequence) {
+            if (!hotKeys.containsKey(ByteBuffer.wrap(key))) {
+                return;
+            }
+
+            ByteBuffer localKey = ByteBuffer.wrap(key.clone());
+            localValues.put(localKey, value);
+            if (invalidationSequence.get() != sequence) {
+                localValues.invalidate(localKey); //读取期间删除过本地的值，放弃本次保存的值
+            }
+        }
+
+        void rotate() {
+            List<Map.Entry<ByteBuffer, Long>> sortedCandidates = new ArrayList<>(candidates.entrySet());
+            candidates.clear();
+            sketch.reset();
+
+            sortedCandidates.sort(Map.Entry.<ByteBuffer, Long>comparingByValue().reversed());
+            Map<ByteBuffer, Long> newHotKeys = new LinkedHashMap<>();
+            for (int i = 0; i < sortedCandidates.size() && i < topK; i++) {
+                newHotKeys.put(sortedCandidates.get(i).getKey(), sortedCandidates.get(i).getValue());
+            }
+
+            Map<ByteBuffer, Long> oldHotKeys = hotKeys;
+            hotKeys = newHotKeys.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(newHotKeys);
+            for (ByteBuffer oldHotKey : oldHotKeys.keySet()) {
+                if (!newHotKeys.containsKey(oldHotKey)) {
+                    localValues.invalidate(oldHotKey);
+                }
+            }
+            if (!newHotKeys.isEmpty() && log.isDebugEnabled()) {
+                log.debug("缓存[{}]的热点key:{}", name, getHotKeys(name));
+            }
+        }
+    }
+}
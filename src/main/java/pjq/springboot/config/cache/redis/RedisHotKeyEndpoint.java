@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * 查看Redis缓存当前热点key的actuator端点<br>
+ * 1.{@code /actuator/cachehotkeys}返回所有缓存的热点key<br>
+ * 2.{@code /actuator/cachehotkeys/缓存名}返回指定缓存的热点key<br>
+ * 需要通过management.endpoints.web.exposure.include配置暴露该端点
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Endpoint(id = "cachehotkeys")
+@AllArgsConstructor
+public class RedisHotKeyEndpoint {
+    private final RedisHotKeyDetector redisHotKeyDetector;
+
+    @ReadOperation
+    public Map<String, List<RedisHotKeyDetector.HotKey>> hotKeys() {
+        return redisHotKeyDetector.getHotKeys();
+    }
+
+    @ReadOperation
+    public List<RedisHotKeyDetector.HotKey> cacheHotKeys(@Selector String cacheName) {
+        return redisHotKeyDetector.getHotKeys(cacheName);
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.lang.Nullable;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于RESP3客户端缓存(CLIENT TRACKING)的Redis近端缓存<br>
+ * 1.使用单独的连接以BCAST模式开启CLIENT TRACKING并只跟踪指定前缀的key，任何客户端修改、删除这些key或key失效时，Redis都会推送失效消息<br>
+ * 2.读取到的缓存值按原始字节保存在本地，只保存以跟踪前缀开头的key；收到失效消息时删除对应的本地缓存，收到清空消息或跟踪连接断开时清空本地缓存<br>
+ * 3.读取Redis期间收到过失效消息时，本次读取的值不保存到本地，避免旧值覆盖失效消息<br>
+ * 4.只支持Lettuce的单机/主从连接，其它连接方式下不启用，所有方法都直接返回未命中
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+public class RedisNearCache implements DisposableBean {
+    private static final String INVALIDATE_MESSAGE_TYPE = "invalidate";
+
+    private final Cache<ByteBuffer, byte[]> localCache;
+    private final byte[][] prefixes;
+    private final AtomicLong invalidationSequence = new AtomicLong();
+    private final @Nullable StatefulRedisConnection<byte[], byte[]> trackingConnection;
+
+    /**
+     * @param connectionFactory
+     * @param maximumSize
+     *         本地缓存的最大缓存项数量
+     * @param ttl
+     *         本地缓存项的最长保存时间
+     * @param prefixes
+     *         跟踪的key前缀
+     */
+    RedisNearCache(RedisConnectionFactory connectionFactory, long maximumSize, Duration ttl, List<String> prefixes) {
+        this.localCache = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).build();
+        this.prefixes = new byte[prefixes.size()][];
+        for (int i = 0; i < prefixes.size(); i++) {
+            this.prefixes[i] = prefixes.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        this.trackingConnection = connectTracking(connectionFactory, prefixes);
+    }
+
+    /**
+     * 获取本地缓存的值
+     *
+     * @param key
+     * @return 没有本地缓存时返回null
+     */
+    @Nullable
+    byte[] get(byte[] key) {
+        return trackingConnection != null ? localCache.getIfPresent(ByteBuffer.wrap(key)) : null;
+    }
+
+    /**
+     * 读取Redis前获取失效消息的序号，保存读取结果时用于判断读取期间是否收到过失效消息
+     *
+     * @return
+     */
+    long sequence() {
+        return invalidationSequence.get();
+    }
+
+    /**
+     * 保存从Redis读取到的值
+     *
+     * @param key
+     * @param value
+     * @param sequence
+     *         读取Redis前通过{@link #sequence()}获取的序号
+     */
+    void put(byte[] key, byte[] value, long sequence) {
+        if (trackingConnection == null || !isTracked(key)) {
+            return;
+        }
+
+        ByteBuffer localKey = ByteBuffer.wrap(key.clone());
+        localCache.put(localKey, value);
+        if (invalidationSequence.get() != sequence) {
+            localCache.invalidate(localKey); //读取期间收到过失效消息，放弃本次保存的值
+        }
+    }
+
+    /**
+     * 删除本地缓存，用于本实例写入或删除缓存时，不需要等待Redis推送的失效消息
+     *
+     * @param key
+     */
+    void evict(byte[] key) {
+        invalidationSequence.incrementAndGet();
+        localCache.invalidate(ByteBuffer.wrap(key));
+    }
+
+    void clear() {
+        invalidationSequence.incrementAndGet();
+        localCache.invalidateAll();
+    }
+
+    /**
+     * 删除和缓存清理的key模式匹配的本地缓存，用于清理某个缓存时不影响其它缓存的本地缓存<br>
+     * 只支持以'*'结尾的前缀模式(即清理整个缓存时的模式)，其它模式清空所有本地缓存
+     *
+     * @param pattern
+     */
+    void clear(byte[] pattern) {
+        int prefixLength = pattern.length - 1;
+        if (prefixLength < 0 || pattern[prefixLength] != '*' || hasGlobChar(pattern, prefixLength)) {
+            clear();
+            return;
+        }
+
+        invalidationSequence.incrementAndGet();
+        ByteBuffer prefix = ByteBuffer.wrap(pattern, 0, prefixLength);
+        localCache.asMap().keySet().removeIf(key -> key.remaining() >= prefixLength
+                && key.duplicate().limit(key.position() + prefixLength).equals(prefix));
+    }
+
+    @Override
+    public void destroy() {
+        if (trackingConnection != null) {
+            trackingConnection.closeAsync();
+        }
+    }
+
+    private boolean isTracked(byte[] key) {
+        for (byte[] prefix : prefixes) {
+            if (startsWith(key, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private StatefulRedisConnection<byte[], byte[]> connectTracking(RedisConnectionFactory connectionFactory,
+            List<String> trackingPrefixes) {
+        AbstractRedisClient client = connectionFactory instanceof LettuceConnectionFactory
+                ? ((LettuceConnectionFactory) connectionFactory).getNativeClient() : null;
+        if (!(client instanceof RedisClient)) {
+            log.warn("Redis近端缓存只支持Lettuce的单机/主从连接，不启用");
+            return null;
+        }
+
+        TrackingArgs trackingArgs = TrackingArgs.Builder.enabled().bcast()
+                .prefixes(StandardCharsets.UTF_8, trackingPrefixes.toArray(new String[0]));
+        StatefulRedisConnection<byte[], byte[]> connection;
+        try {
+            connection = ((RedisClient) client).connect(ByteArrayCodec.INSTANCE);
+            connection.addListener(this::handlePushMessage);
+            connection.sync().clientTracking(trackingArgs);
+        } catch (Exception e) {
+            log.warn("开启Redis客户端缓存跟踪异常(需要Redis 6及RESP3协议)，不启用近端缓存", e);
+            return null;
+        }
+
+        //重连后跟踪状态丢失，断开期间的失效消息也会丢失，所以断开时清空本地缓存，重连后重新开启跟踪
+        client.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress socketAddress) {
+                if (handler == connection) {
+                    clear();
+                    connection.async().clientTracking(trackingArgs);
+                }
+            }
+
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+                if (handler == connection) {
+                    clear();
+                }
+            }
+
+            @Override
+            public void onRedisExceptionCaught(RedisChannelHandler<?, ?> handler, Throwable cause) {
+                //连接异常由Lettuce自动重连
+            }
+        });
+        log.info("已启用Redis近端缓存，跟踪的key前缀:{}", trackingPrefixes);
+        return connection;
+    }
+
+    private void handlePushMessage(PushMessage message) {
+        if (!INVALIDATE_MESSAGE_TYPE.equals(message.getType())) {
+            return;
+        }
+
+        invalidationSequence.incrementAndGet();
+        List<Object> content = message.getContent(RedisNearCache::copy);
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        if (keys instanceof List) {
+            for (Object key : (List<?>) keys) {
+                localCache.invalidate(key);
+            }
+        } else {
+            localCache.invalidateAll(); //FLUSHDB/FLUSHALL时失效消息中没有key
+        }
+    }
+
+    private static boolean hasGlobChar(byte[] pattern, int end) {
+        for (int i = 0; i < end; i++) {
+            if (pattern[i] == '*' || pattern[i] == '?' || pattern[i] == '[' || pattern[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ByteBuffer copy(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.lang.Nullable;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 缓存writer共用的Redis原生连接<br>
+ * 1.Lettuce的连接是线程安全的，各线程的命令在同一连接上多路复用，执行普通的GET/SET等命令时不需要每次获取和归还连接<br>
+ * 2.只用于不阻塞、不使用事务和pipeline的单个命令；缓存锁、等待锁、pipeline及清空缓存仍使用连接工厂获取的独立连接<br>
+ * 3.连接工厂已共用原生连接(shareNativeConnection，默认开启)时不再建立连接，writer直接使用连接工厂的共用连接；
+ * 只有连接工厂使用独立连接或连接池时才建立，连接使用连接工厂的客户端创建，SSL、客户端名称等和连接工厂一致，并使用连接工厂的命令超时时间<br>
+ * 4.命令的异常通过{@link LettuceConnectionFactory#translateExceptionIfPossible(RuntimeException)}转换为Spring的异常，
+ * 和连接工厂获取的连接一致<br>
+ * 5.只支持Lettuce的单机/主从连接，其它连接方式下不启用，writer仍使用连接工厂获取的连接
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+public class RedisSharedCacheConnection implements DisposableBean {
+    private static final String OK = "OK";
+
+    private final @Nullable LettuceConnectionFactory connectionFactory;
+    private final @Nullable StatefulRedisConnection<byte[], byte[]> connection;
+
+    RedisSharedCacheConnection(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory instanceof LettuceConnectionFactory
+                ? (LettuceConnectionFactory) connectionFactory : null;
+        this.connection = connect(this.connectionFactory);
+    }
+
+    /**
+     * 是否已建立共用连接
+     *
+     * @return
+     */
+    boolean isAvailable() {
+        return connection != null;
+    }
+
+    /**
+     * 在共用连接上执行命令，调用前需要通过{@link #isAvailable()}判断
+     *
+     * @param callback
+     * @return
+     */
+    <T> T execute(Function<RedisCommands<byte[], byte[]>, T> callback) {
+        try {
+            return callback.apply(connection.sync());
+        } catch (RuntimeException e) {
+            DataAccessException translated = connectionFactory.translateExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
+    }
+
+    @Nullable
+    byte[] get(byte[] key) {
+        return execute(commands -> commands.get(key));
+    }
+
+    List<byte[]> mGet(byte[][] keys) {
+        List<KeyValue<byte[], byte[]>> keyValues = execute(commands -> commands.mget(keys));
+        List<byte[]> values = new ArrayList<>(keyValues.size());
+        for (KeyValue<byte[], byte[]> keyValue : keyValues) {
+            values.add(keyValue.getValueOrElse(null));
+        }
+        return values;
+    }
+
+    /**
+     * @param key
+     * @param value
+     * @param ttl
+     *         为空时不设置失效时间
+     */
+    void set(byte[] key, byte[] value, @Nullable Duration ttl) {
+        execute(commands -> ttl != null ? commands.set(key, value, SetArgs.Builder.px(ttl.toMillis()))
+                : commands.set(key, value));
+    }
+
+    /**
+     * @param key
+     * @param value
+     * @param ttl
+     *         为空时不设置失效时间
+     * @return key不存在并写入成功时返回true
+     */
+    boolean setIfAbsent(byte[] key, byte[] value, @Nullable Duration ttl) {
+        SetArgs setArgs = ttl != null ? SetArgs.Builder.nx().px(ttl.toMillis()) : SetArgs.Builder.nx();
+        return OK.equals(execute(commands -> commands.set(key, value, setArgs)));
+    }
+
+    long del(byte[] key) {
+        Long count = execute(commands -> commands.del(key));
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    public void destroy() {
+        if (connection != null) {
+            connection.closeAsync();
+        }
+    }
+
+    @Nullable
+    private static StatefulRedisConnection<byte[], byte[]> connect(
+            @Nullable LettuceConnectionFactory connectionFactory) {
+        AbstractRedisClient client = connectionFactory != null ? connectionFactory.getNativeClient() : null;
+        if (!(client instanceof RedisClient)) {
+            log.warn("Redis缓存共用连接只支持Lettuce的单机/主从连接，不启用");
+            return null;
+        }
+        if (connectionFactory.getShareNativeConnection()) {
+            log.info("Redis连接工厂已共用原生连接，缓存直接使用连接工厂的连接，不再建立共用连接");
+            return null;
+        }
+
+        try {
+            StatefulRedisConnection<byte[], byte[]> connection = ((RedisClient) client)
+                    .connect(ByteArrayCodec.INSTANCE);
+            connection.setTimeout(Duration.ofMillis(connectionFactory.getTimeout()));
+            int database = connectionFactory.getDatabase();
+            if (database != 0) {
+                connection.sync().select(database); //Lettuce重连后会自动重新选择数据库
+            }
+            log.info("已启用Redis缓存共用连接");
+            return connection;
+        } catch (Exception e) {
+            log.warn("建立Redis缓存共用连接异常，不启用", e);
+            return null;
+        }
+    }
+}
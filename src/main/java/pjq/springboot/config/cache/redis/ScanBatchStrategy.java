@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.redis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import org.springframework.data.redis.cache.BatchStrategy;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 使用SCAN分批清理缓存的策略<br>
+ * 1.和{@link org.springframework.data.redis.cache.BatchStrategies#scan(int)}相比，可选择使用UNLINK在Redis后台线程释放内存，避免大key删除阻塞Redis<br>
+ * 2.每批删除完成后回调删除数量，用于在清理过程中实时更新缓存统计信息<br>
+ * 3.SCAN的游标和删除命令使用同一连接，不能对删除命令使用pipeline，所以每批key合并为一条UNLINK/DEL命令发送
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+class ScanBatchStrategy implements BatchStrategy {
+    private final int batchSize;
+    private final boolean unlink;
+
+    /**
+     * @param batchSize
+     *         每次SCAN的COUNT值，同时也是每批删除的key数量
+     * @param unlink
+     *         是否使用UNLINK代替DEL
+     */
+    ScanBatchStrategy(int batchSize, boolean unlink) {
+        this.batchSize = Math.max(batchSize, 1);
+        this.unlink = unlink;
+    }
+
+    @Override
+    public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+        return cleanCache(connection, name, pattern, batchDeleteCount -> {
+        });
+    }
+
+    /**
+     * 分批清理缓存
+     *
+     * @param connection
+     * @param name
+     * @param pattern
+     * @param progressListener
+     *         每批删除完成后的回调，参数为该批实际删除的key数量
+     * @return 总删除数量
+     */
+    long cleanCache(RedisConnection connection, String name, byte[] pattern, LongConsumer progressListener) {
+        long deleteCount = 0;
+        List<byte[]> keys = new ArrayList<>(batchSize);
+        //删除异常时也要关闭游标
+        try (Cursor<byte[]> cursor = connection.scan(
+                ScanOptions.scanOptions().count(batchSize).match(pattern).build())) {
+            while (cursor.hasNext()) {
+                keys.add(cursor.next());
+                if (keys.size() >= batchSize) {
+                    deleteCount += deleteBatch(connection, name, keys, deleteCount, progressListener);
+                    keys.clear();
+                }
+            }
+        }
+        if (!keys.isEmpty()) {
+            deleteCount += deleteBatch(connection, name, keys, deleteCount, progressListener);
+        }
+        return deleteCount;
+    }
+
+    private long deleteBatch(RedisConnection connection, String name, List<byte[]> keys, long deletedBefore,
+            LongConsumer progressListener) {
+        byte[][] keyArray = keys.toArray(new byte[keys.size()][]);
+        Long deleted = unlink ? connection.unlink(keyArray) : connection.del(keyArray);
+        long batchDeleteCount = deleted != null ? deleted : keys.size();
+        progressListener.accept(batchDeleteCount);
+        log.debug("清理缓存[{}]进度:已删除{}个key", name, deletedBefore + batchDeleteCount);
+        return batchDeleteCount;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache.warmup;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pjq.springboot.assembly.annotation.cache.CacheWarmup;
+import pjq.springboot.config.cache.CacheCustomProperties;
+import pjq.springboot.service.cache.CacheWarmer;
+
+/**
+ * 应用启动时执行缓存预热<br>
+ * 1.预热任务包括{@link CacheWarmer}类型的Bean及Bean中有@{@link CacheWarmup}注解的方法<br>
+ * 2.在Web服务启动前(本地缓存快照恢复后)使用有界线程池并行执行，所有任务完成或超过预热时间后才继续启动，即预热期间应用不接收请求<br>
+ * 3.超过预热时间仍未完成的任务会被中断；单个任务失败只输出日志，不影响应用启动<br>
+ * 4.有{@link MeterRegistry}时按任务名及结果记录预热耗时
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+@Slf4j
+@Component
+public class CacheWarmupProcessor implements BeanPostProcessor, SmartLifecycle {
+    /**
+     * 在本地缓存快照恢复后、Web服务启动前执行
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 3072;
+    private static final String RESULT_SUCCESS = "success";
+    private static final String RESULT_FAILURE = "failure";
+    private static final String RESULT_TIMEOUT = "timeout";
+
+    private final ObjectProvider<CacheWarmer> cacheWarmerProvider;
+    private final ObjectProvider<CacheCustomProperties> cacheCustomPropertiesProvider;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final List<WarmupTask> annotatedTasks = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+
+    /**
+     * 作为{@link BeanPostProcessor}会比其它Bean先创建，依赖的Bean都在执行预热时才获取
+     */
+    public CacheWarmupProcessor(ObjectProvider<CacheWarmer> cacheWarmerProvider,
+            ObjectProvider<CacheCustomProperties> cacheCustomPropertiesProvider,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.cacheWarmerProvider = cacheWarmerProvider;
+        this.cacheCustomPropertiesProvider = cacheCustomPropertiesProvider;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        Map<Method, CacheWarmup> methods = MethodIntrospector.selectMethods(targetClass,
+                (MethodIntrospector.MetadataLookup<CacheWarmup>) method -> AnnotatedElementUtils
+                        .findMergedAnnotation(method, CacheWarmup.class));
+        methods.forEach((method, cacheWarmup) -> {
+            if (method.getParameterCount() > 0) {
+                log.warn("缓存预热方法[{}]有参数，不执行", method);
+                return;
+            }
+
+            //通过Bean(可能是代理对象)调用，使@Cacheable等注解生效
+            Method invocableMethod = AopUtils.selectInvocableMethod(method, bean.getClass());
+            ReflectionUtils.makeAccessible(invocableMethod);
+            String name = StringUtils.hasText(cacheWarmup.value()) ? cacheWarmup.value()
+                    : targetClass.getSimpleName() + "." + method.getName();
+            annotatedTasks.add(new WarmupTask(name, () -> ReflectionUtils.invokeMethod(invocableMethod, bean)));
+        });
+        return bean;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        CacheCustomProperties.Warmup properties = cacheCustomPropertiesProvider.getObject().getWarmup();
+        List<WarmupTask> tasks = new ArrayList<>(annotatedTasks);
+        cacheWarmerProvider.orderedStream().forEach(warmer -> tasks.add(new WarmupTask(warmer.getName(), () -> {
+            warmer.warmUp();
+            return null;
+        })));
+        if (!properties.isEnabled() || tasks.isEmpty()) {
+            return;
+        }
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        List<Callable<Void>> callables = new ArrayList<>(tasks.size());
+        for (WarmupTask task : tasks) {
+            callables.add(() -> {
+                run(task, meterRegistry);
+                return null;
+            });
+        }
+
+        long startTime = System.nanoTime();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-warmup-");
+        threadFactory.setDaemon(true);
+        //线程数配置为0或负数时仍使用1个线程
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(tasks.size(), properties.getParallelism())), threadFactory);
+        try {
+            log.info("开始执行缓存预热，共{}个任务", tasks.size());
+            List<Future<Void>> futures = executor.invokeAll(callables, properties.getTimeout().toMillis(),
+                    TimeUnit.MILLISECONDS);
+            for (int i = 0; i < futures.size(); i++) {
+                if (futures.get(i).isCancelled()) {
+                    log.warn("缓存预热任务[{}]超过预热时间{}，已中断", tasks.get(i).name, properties.getTimeout());
+                    record(meterRegistry, tasks.get(i).name, RESULT_TIMEOUT, System.nanoTime() - startTime);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("缓存预热完成，耗时{}ms", Duration.ofNanos(System.nanoTime() - startTime).toMillis());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private static void run(WarmupTask task, @Nullable MeterRegistry meterRegistry) {
+        long startTime = System.nanoTime();
+        String result = RESULT_SUCCESS;
+        try {
+            task.callable.call();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; //超时中断的任务由调用方记录
+        } catch (Exception e) {
+            result = RESULT_FAILURE;
+            log.warn("缓存预热任务[{}]执行异常", task.name, e);
+        }
+        if (!Thread.currentThread().isInterrupted()) {
+            record(meterRegistry, task.name, result, System.nanoTime() - startTime);
+        }
+    }
+
+    private static void record(@Nullable MeterRegistry meterRegistry, String name, String result, long nanos) {
+        if (meterRegistry != null) {
+            Timer.builder("pjq.cache.warmup.time").tag("warmer", name).tag("result", result)
+                    .description("缓存预热任务的耗时").register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class WarmupTask {
+        private final String name;
+        private final Callable<?> callable;
+    }
+}
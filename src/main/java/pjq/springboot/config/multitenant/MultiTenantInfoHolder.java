@@ -31,6 +31,11 @@
  */
 package pjq.springboot.config.multitenant;
 
+import java.util.concurrent.Executor;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.lang.Nullable;
+
 /**
  * 多租户信息获取器<br>
  * 由具体工程实现该Bean中的方法
@@ -62,4 +67,29 @@ public abstract class MultiTenantInfoHolder {
     public String getContextTenantName() {
         return UNKNOWN_TENANT_NAME;
     }
+
+    /**
+     * 传递租户上下文的任务装饰器<br>
+     * 1.{@link TaskDecorator#decorate(Runnable)}在提交任务的线程中调用，需要在该方法中获取当前线程的租户信息，
+     * 并在返回的任务执行前设置到执行线程、执行后清理<br>
+     * 2.默认返回null，表示不能传递租户上下文，此时需要在后台线程执行并依赖租户上下文的功能(例如缓存提前刷新)不启用
+     *
+     * @return
+     */
+    @Nullable
+    public TaskDecorator getContextTaskDecorator() {
+        return null;
+    }
+
+    /**
+     * 把执行器包装为传递租户上下文的执行器
+     *
+     * @param executor
+     * @return 没有提供{@link #getContextTaskDecorator()}时返回null
+     */
+    @Nullable
+    public Executor decorateExecutor(Executor executor) {
+        TaskDecorator taskDecorator = getContextTaskDecorator();
+        return taskDecorator != null ? task -> executor.execute(taskDecorator.decorate(task)) : null;
+    }
 }
\ No newline at end of file
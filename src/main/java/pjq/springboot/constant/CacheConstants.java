@@ -60,6 +60,24 @@ public final class CacheConstants {
      */
     public static final String CUSTOM_KEY_GENERATOR_NAME = "customKeyGenerator";
 
+    /**
+     * 是否记录缓存指标<br>
+     * 默认不记录
+     */
+    public static final String CACHE_METRICS_ENABLED = "pjq.cache.metrics-enabled";
+
+    /**
+     * 是否根据堆内存压力调整本地缓存大小<br>
+     * 默认不调整
+     */
+    public static final String CACHE_ADAPTIVE_SIZING_ENABLED = "pjq.cache.adaptive-sizing.enabled";
+
+    /**
+     * 是否在应用停止时保存本地缓存快照并在启动时恢复<br>
+     * 默认不保存
+     */
+    public static final String CACHE_SNAPSHOT_ENABLED = "pjq.cache.snapshot.enabled";
+
     /**
      * 1小时后失效
      */
@@ -106,5 +124,10 @@ public final class CacheConstants {
          * 根据cacheName动态配置的Redis cacheManager
          */
         public static final String REDIS_CACHE_DYNAMIC_CONFIG_MANAGER = "dynamicConfigRedisCacheManager";
+
+        /**
+         * Caffeine本地缓存+Redis缓存的两级cacheManager，同样根据cacheName动态配置
+         */
+        public static final String LAYERED_CACHE_MANAGER = "layeredCacheManager";
     }
 }
\ No newline at end of file
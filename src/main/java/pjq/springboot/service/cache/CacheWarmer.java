@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.service.cache;
+
+/**
+ * 缓存预热Service<br>
+ * 具体工程可按需实现多个实现类并注册为Bean，应用启动时在Web服务接收请求前并行执行，执行完成或超过预热时间后才开始接收请求
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ * @see pjq.springboot.assembly.annotation.cache.CacheWarmup
+ */
+public interface CacheWarmer {
+    /**
+     * 预热任务的名称，用于日志及指标
+     *
+     * @return
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * 执行缓存预热，例如从数据源加载数据后写入缓存，或调用@Cacheable方法
+     *
+     * @throws Exception
+     */
+    void warmUp() throws Exception;
+}
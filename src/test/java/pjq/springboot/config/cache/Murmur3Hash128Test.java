@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2024 pengjianqiang
+ * All rights reserved.
+ * 项目名称：pjq-spring-boot-starter
+ * 项目描述：个人常用的Spring Boot应用配置代码
+ * 项目地址：https://github.com/qqxadyy/pjq-spring-boot-starter
+ * 许可证信息：见下文
+ *
+ * ======================================================================
+ *
+ * The MIT License
+ * Copyright © 2024 pengjianqiang
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package pjq.springboot.config.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link Murmur3Hash128}的测试<br>
+ * 期望值按MurmurHash3_x64_128(seed为0)的参考实现计算，输出为h1、h2的十六进制
+ *
+ * @author pengjianqiang
+ * @date 2026-10-17
+ */
+class Murmur3Hash128Test {
+    @Test
+    void emptyInput() {
+        assertEquals("00000000000000000000000000000000", hash(""));
+    }
+
+    @Test
+    void tailOnly() {
+        assertEquals("cbd8a7b341bd9b025b1e906a48ae1d19", hash("hello"));
+    }
+
+    @Test
+    void exactBlock() {
+        assertEquals("4be06d94cf4ad1a787c35b5c63a708da", hash("0123456789abcdef"));
+    }
+
+    @Test
+    void blockWithTail() {
+        assertEquals("8e32612daa45f9de0800f4c206c372ee", hash("0123456789abcdefg"));
+        assertEquals("e34bbc7bbc071b6c7a433ca9c49a9347", hash("The quick brown fox jumps over the lazy dog"));
+    }
+
+    @Test
+    void writeCharsAsUtf16Le() {
+        Murmur3Hash128 hash = new Murmur3Hash128();
+        hash.writeChars("ab", 0, 2);
+        StringBuilder result = new StringBuilder();
+        hash.finishTo(result);
+        assertEquals("1f5b190c434a0e61934ef3c7cc3c2b1a", result.toString());
+    }
+
+    @Test
+    void reuseAfterReset() {
+        Murmur3Hash128 hash = new Murmur3Hash128();
+        hash.write("ignored".getBytes(StandardCharsets.UTF_8), 0, 7);
+        hash.finishTo(new StringBuilder());
+        hash.reset();
+        hash.write("hello".getBytes(StandardCharsets.UTF_8), 0, 5);
+        StringBuilder result = new StringBuilder();
+        hash.finishTo(result);
+        assertEquals("cbd8a7b341bd9b025b1e906a48ae1d19", result.toString());
+    }
+
+    private static String hash(String value) {
+        Murmur3Hash128 hash = new Murmur3Hash128();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        hash.write(bytes, 0, bytes.length);
+        StringBuilder result = new StringBuilder();
+        hash.finishTo(result);
+        return result.toString();
+    }
+}